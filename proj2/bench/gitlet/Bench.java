@@ -0,0 +1,211 @@
+package gitlet;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Stream;
+
+/** Benchmarks the core repository operations against synthetic
+ *  repositories. Every combination of the parameter values gets, for each
+ *  operation and each fork, its own scratch directory and its own JVM
+ *  running BenchWorker, so no run sees another's files or warmed caches.
+ *
+ *  Usage: java gitlet.Bench [--ops=add,commit,log,merge,checkout,fromFile]
+ *             [--files=N,...] [--size=BYTES,...] [--depth=N,...]
+ *             [--branches=N,...] [--warmup=N] [--iterations=N] [--forks=N]
+ *
+ *  For each run it prints throughput, latency percentiles and how much was
+ *  allocated and collected per operation.
+ *
+ *  @author Jenny Nguyen
+ */
+public class Bench {
+    private List<String> ops = Arrays.asList(BenchWorker.OPS);
+    private int[] files = {100};
+    private int[] sizes = {1024};
+    private int[] depths = {50};
+    private int[] branches = {4};
+    private int warmup = 10;
+    private int iterations = 50;
+    private int forks = 1;
+
+    public static void main(String[] args) throws IOException, InterruptedException {
+        Bench bench = new Bench();
+        for (String arg : args) {
+            bench.option(arg);
+        }
+        bench.run();
+    }
+
+    private void option(String arg) {
+        int eq = arg.indexOf('=');
+        if (!arg.startsWith("--") || eq < 0) {
+            throw new IllegalArgumentException("bad option " + arg);
+        }
+        String value = arg.substring(eq + 1);
+        switch (arg.substring(2, eq)) {
+            case "ops":
+                ops = Arrays.asList(value.split(","));
+                break;
+            case "files":
+                files = ints(value);
+                break;
+            case "size":
+                sizes = ints(value);
+                break;
+            case "depth":
+                depths = ints(value);
+                break;
+            case "branches":
+                branches = ints(value);
+                break;
+            case "warmup":
+                warmup = Integer.parseInt(value);
+                break;
+            case "iterations":
+                iterations = Integer.parseInt(value);
+                break;
+            case "forks":
+                forks = Integer.parseInt(value);
+                break;
+            default:
+                throw new IllegalArgumentException("unknown option " + arg);
+        }
+    }
+
+    private static int[] ints(String list) {
+        return Arrays.stream(list.split(",")).mapToInt(Integer::parseInt).toArray();
+    }
+
+    private void run() throws IOException, InterruptedException {
+        System.out.printf("%-9s %6s %7s %6s %4s %10s %9s %9s %9s %9s %9s %11s %9s %5s %7s%n",
+                "op", "files", "size", "depth", "br", "ops/s", "mean ms", "p50 ms",
+                "p90 ms", "p99 ms", "max ms", "alloc/op", "alloc MB/s", "gcs", "gc ms");
+        for (int f : files) {
+            for (int s : sizes) {
+                for (int d : depths) {
+                    for (int b : branches) {
+                        for (String op : ops) {
+                            measure(op, f, s, d, b);
+                        }
+                    }
+                }
+            }
+        }
+    }
+
+    private void measure(String op, int f, int s, int d, int b)
+            throws IOException, InterruptedException {
+        long[] times = new long[0];
+        long allocated = 0;
+        long gcs = 0;
+        long gcMillis = 0;
+        for (int k = 0; k < forks; k++) {
+            List<String> out = fork(op, f, s, d, b);
+            if (out == null) {
+                System.out.printf("%-9s %6d %7d %6d %4d   failed, see above%n", op, f, s, d, b);
+                return;
+            }
+            long[] forked = Arrays.stream(out.get(0).split(" "))
+                    .mapToLong(Long::parseLong).toArray();
+            times = Arrays.copyOf(times, times.length + forked.length);
+            System.arraycopy(forked, 0, times, times.length - forked.length, forked.length);
+            String[] totals = out.get(1).split(" ");
+            allocated += Long.parseLong(totals[0]);
+            gcs += Long.parseLong(totals[1]);
+            gcMillis += Long.parseLong(totals[2]);
+        }
+
+        Arrays.sort(times);
+        long total = 0;
+        for (long t : times) {
+            total += t;
+        }
+        double seconds = total / 1e9;
+        System.out.printf("%-9s %6d %7d %6d %4d %10.1f %9.3f %9.3f %9.3f %9.3f %9.3f %11s %9.1f"
+                        + " %5d %7d%n", op, f, s, d, b, times.length / seconds,
+                total / 1e6 / times.length, millis(times, 0.50), millis(times, 0.90),
+                millis(times, 0.99), times[times.length - 1] / 1e6,
+                bytes(allocated / times.length), allocated / seconds / (1 << 20), gcs, gcMillis);
+    }
+
+    /** Runs BenchWorker in a new JVM inside a new scratch directory and
+     *  returns its two result lines, or null if it failed. */
+    private List<String> fork(String op, int f, int s, int d, int b)
+            throws IOException, InterruptedException {
+        Path dir = Files.createTempDirectory("gitlet-bench");
+        try {
+            List<String> lines = runJava(dir, "gitlet.BenchWorker", op, "" + f, "" + s,
+                    "" + d, "" + b, "" + warmup, "" + iterations);
+            if (lines == null || lines.size() < 2) {
+                return null;
+            }
+            return lines.subList(lines.size() - 2, lines.size());
+        } finally {
+            deleteTree(dir);
+        }
+    }
+
+    /** Runs MAINCLASS with ARGS in a new JVM, on this JVM's class path, with
+     *  DIR as its working directory. Returns what it printed, one line per
+     *  element, or null if it failed. Its errors go straight to ours. */
+    static List<String> runJava(Path dir, String mainClass, String... args)
+            throws IOException, InterruptedException {
+        List<String> command = new ArrayList<>(List.of(
+                Path.of(System.getProperty("java.home"), "bin", "java").toString(),
+                "-cp", classPath(), mainClass));
+        command.addAll(Arrays.asList(args));
+        ProcessBuilder pb = new ProcessBuilder(command);
+        pb.directory(dir.toFile());
+        pb.redirectError(ProcessBuilder.Redirect.INHERIT);
+        Process p = pb.start();
+        List<String> lines = new ArrayList<>();
+        try (BufferedReader in = new BufferedReader(new InputStreamReader(
+                p.getInputStream(), StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = in.readLine()) != null) {
+                lines.add(line);
+            }
+        }
+        return p.waitFor() == 0 ? lines : null;
+    }
+
+    // this JVM's class path with every entry made absolute, since the
+    // worker runs in another directory
+    private static String classPath() {
+        List<String> entries = new ArrayList<>();
+        for (String e : System.getProperty("java.class.path").split(File.pathSeparator)) {
+            entries.add(new File(e).getAbsolutePath());
+        }
+        return String.join(File.pathSeparator, entries);
+    }
+
+    // the time, in ms, that a fraction P of the sorted TIMES are within
+    static double millis(long[] times, double p) {
+        int i = (int) Math.ceil(p * times.length) - 1;
+        return times[Math.max(0, i)] / 1e6;
+    }
+
+    static String bytes(long n) {
+        if (n >= 1 << 20) {
+            return String.format("%.1f MB", n / (double) (1 << 20));
+        } else if (n >= 1 << 10) {
+            return String.format("%.1f KB", n / (double) (1 << 10));
+        }
+        return n + " B";
+    }
+
+    static void deleteTree(Path dir) throws IOException {
+        try (Stream<Path> paths = Files.walk(dir)) {
+            paths.sorted(Comparator.reverseOrder()).forEach(p -> p.toFile().delete());
+        }
+    }
+}
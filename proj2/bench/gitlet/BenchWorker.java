@@ -0,0 +1,189 @@
+package gitlet;
+
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.util.List;
+
+/** Times one operation in a fresh JVM whose working directory is an empty
+ *  scratch directory. Repository fixes its paths from the working directory
+ *  when it is loaded, which is why every fixture needs its own process.
+ *
+ *  Builds the Fixture, runs WARMUP untimed invocations and then ITERATIONS
+ *  timed ones. Each invocation has an untimed setup step, so for example
+ *  commit always has freshly staged changes to commit. What the commands
+ *  print is thrown away; the results go to the real standard output as two
+ *  lines: the time of every invocation in nanoseconds, then the bytes
+ *  allocated, the number of collections and the milliseconds spent in
+ *  them over the timed invocations, followed by the nanoseconds the very
+ *  first (cold) invocation took.
+ *
+ *  Usage: java gitlet.BenchWorker OP FILES SIZE DEPTH BRANCHES WARMUP ITERATIONS
+ *
+ *  @author Jenny Nguyen
+ */
+class BenchWorker {
+    static final String[] OPS = {"add", "commit", "log", "merge", "checkout", "fromFile"};
+
+    /** One benchmarked operation. Only run is timed. */
+    interface Operation {
+        default void setup(int i) {
+        }
+
+        void run(int i);
+    }
+
+    public static void main(String[] args) {
+        String op = args[0];
+        Fixture fx = new Fixture(Integer.parseInt(args[1]), Integer.parseInt(args[2]),
+                Integer.parseInt(args[3]), Integer.parseInt(args[4]));
+        int warmup = Integer.parseInt(args[5]);
+        int iterations = Integer.parseInt(args[6]);
+
+        PrintStream results = System.out;
+        System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+        Repository repo = new Repository();
+        fx.build(repo);
+        time(operation(op, repo, fx), warmup, iterations, results);
+    }
+
+    /** Runs O WARMUP times and then ITERATIONS timed times, and prints the
+     *  two result lines to RESULTS. */
+    static void time(Operation o, int warmup, int iterations, PrintStream results) {
+        long cold = 0;
+        for (int i = 0; i < warmup; i++) {
+            o.setup(i);
+            long start = System.nanoTime();
+            o.run(i);
+            if (i == 0) {
+                cold = System.nanoTime() - start;
+            }
+        }
+        long[] times = new long[iterations];
+        long allocated = 0;
+        long gcCount = gcCount();
+        long gcTime = gcTime();
+        for (int i = 0; i < iterations; i++) {
+            o.setup(warmup + i);
+            long bytes = allocatedBytes();
+            long start = System.nanoTime();
+            o.run(warmup + i);
+            times[i] = System.nanoTime() - start;
+            allocated += allocatedBytes() - bytes;
+            if (warmup == 0 && i == 0) {
+                cold = times[0];
+            }
+        }
+
+        StringBuilder line = new StringBuilder();
+        for (long t : times) {
+            line.append(t).append(' ');
+        }
+        results.println(line.toString().trim());
+        results.println(allocated + " " + (gcCount() - gcCount) + " " + (gcTime() - gcTime)
+                + " " + cold);
+        results.flush();
+    }
+
+    private static Operation operation(String op, Repository repo, Fixture fx) {
+        switch (op) {
+            case "add":
+                return new Operation() {
+                    private String[] names;
+
+                    @Override
+                    public void setup(int i) {
+                        names = fx.touchChurn(i);
+                    }
+
+                    @Override
+                    public void run(int i) {
+                        repo.add(names);
+                    }
+                };
+            case "commit":
+                return new Operation() {
+                    @Override
+                    public void setup(int i) {
+                        repo.add(fx.touchChurn(i));
+                    }
+
+                    @Override
+                    public void run(int i) {
+                        repo.commit("bench " + i);
+                    }
+                };
+            case "log":
+                return i -> repo.log();
+            case "merge":
+                needBranches(fx);
+                return new Operation() {
+                    @Override
+                    public void setup(int i) {
+                        repo.reset(fx.masterTip); // undo the previous merge
+                    }
+
+                    @Override
+                    public void run(int i) {
+                        repo.merge("b" + (i % fx.branches));
+                    }
+                };
+            case "checkout":
+                needBranches(fx);
+                // b0, master, b1, master, ... so every switch changes files
+                return i -> repo.checkOutBranch(i % 2 == 0 ? "b" + (i / 2 % fx.branches)
+                        : "master", false);
+            case "fromFile":
+                List<String> ids = Commit.allIDs();
+                return new Operation() {
+                    @Override
+                    public void setup(int i) {
+                        Commit.clearCache();
+                    }
+
+                    @Override
+                    public void run(int i) {
+                        Commit.fromFile(ids.get(i % ids.size()));
+                    }
+                };
+            default:
+                throw new IllegalArgumentException("unknown operation " + op);
+        }
+    }
+
+    private static void needBranches(Fixture fx) {
+        if (fx.branches < 1) {
+            throw new IllegalArgumentException("merge and checkout need at least one branch");
+        }
+    }
+
+    // bytes allocated so far by every live thread, including add's hashing pool
+    private static long allocatedBytes() {
+        com.sun.management.ThreadMXBean threads =
+                (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long total = 0;
+        for (long bytes : threads.getThreadAllocatedBytes(threads.getAllThreadIds())) {
+            if (bytes > 0) {
+                total += bytes;
+            }
+        }
+        return total;
+    }
+
+    private static long gcCount() {
+        long total = 0;
+        for (GarbageCollectorMXBean gc : ManagementFactory.getGarbageCollectorMXBeans()) {
+            total += Math.max(0, gc.getCollectionCount());
+        }
+        return total;
+    }
+
+    private static long gcTime() {
+        long total = 0;
+        for (GarbageCollectorMXBean gc : ManagementFactory.getGarbageCollectorMXBeans()) {
+            total += Math.max(0, gc.getCollectionTime());
+        }
+        return total;
+    }
+}
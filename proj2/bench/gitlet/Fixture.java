@@ -0,0 +1,103 @@
+package gitlet;
+
+import java.io.File;
+import java.util.Random;
+
+import static gitlet.Utils.join;
+
+/** A synthetic repository for the benchmarks, built in the current
+ *  directory through the normal Repository commands.
+ *
+ *  It holds FILES files of SIZE bytes, spread over subdirectories of 32
+ *  files each. The first commit adds them all and each of the next DEPTH - 1
+ *  commits rewrites a tenth of them. Then each of BRANCHES branches b0, b1,
+ *  ... gets one commit of its own off the tip, and master gets one more
+ *  commit touching a file no branch touches, so merging any branch into
+ *  master is a real merge without conflicts.
+ *
+ *  Contents come from a seeded Random, so the same parameters always give
+ *  the same files.
+ *
+ *  @author Jenny Nguyen
+ */
+class Fixture {
+    final int files;
+    final int size;
+    final int depth;
+    final int branches;
+
+    /** ID of master's head once the fixture is built. */
+    String masterTip;
+
+    private final Random random = new Random(42);
+
+    Fixture(int files, int size, int depth, int branches) {
+        if (files < 2 || size < 1 || depth < 1 || branches < 0) {
+            throw new IllegalArgumentException("bad fixture parameters");
+        }
+        this.files = files;
+        this.size = size;
+        this.depth = depth;
+        this.branches = branches;
+    }
+
+    void build(Repository repo) {
+        repo.init();
+        String[] all = new String[files];
+        for (int i = 0; i < files; i++) {
+            all[i] = name(i);
+            touch(i);
+        }
+        repo.add(all);
+        repo.commit("add " + files + " files");
+        for (int d = 1; d < depth; d++) {
+            repo.add(touchChurn(d));
+            repo.commit("change " + d);
+        }
+        for (int b = 0; b < branches; b++) {
+            repo.branch("b" + b);
+            repo.checkOutBranch("b" + b, false);
+            touch(b % (files - 1));
+            repo.add(name(b % (files - 1)));
+            repo.commit("work on b" + b);
+            repo.checkOutBranch("master", false);
+        }
+        touch(files - 1);
+        repo.add(name(files - 1));
+        repo.commit("work on master");
+        masterTip = headID();
+    }
+
+    /** Rewrites the tenth of the files that change in ROUND and returns
+     *  their names. */
+    String[] touchChurn(int round) {
+        int k = Math.max(1, files / 10);
+        String[] names = new String[k];
+        for (int j = 0; j < k; j++) {
+            int i = (round * k + j) % files;
+            touch(i);
+            names[j] = name(i);
+        }
+        return names;
+    }
+
+    /** Gives file I new random contents. */
+    void touch(int i) {
+        char[] text = new char[size];
+        for (int k = 0; k < size; k++) {
+            text[k] = k % 64 == 63 ? '\n' : (char) ('a' + random.nextInt(26));
+        }
+        File f = join(Repository.CWD, name(i));
+        f.getParentFile().mkdirs();
+        Utils.writeContents(f, new String(text));
+    }
+
+    static String name(int i) {
+        return "dir" + (i / 32) + "/file" + i + ".txt";
+    }
+
+    static String headID() {
+        String branch = Utils.readContentsAsString(Repository.HEAD);
+        return Utils.readContentsAsString(join(Repository.BRANCHES, branch));
+    }
+}
@@ -0,0 +1,314 @@
+package gitlet;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+
+import static gitlet.Utils.join;
+
+/** Writes a synthetic repository straight into .gitlet in the current
+ *  directory, storing blobs and commits itself instead of going through
+ *  add and commit, so even deep histories take seconds to make.
+ *
+ *  Master gets DEPTH commits. Every so often a branch is forked off it and
+ *  given BRANCH-LENGTH commits of its own; a share MERGE-RATE of them is
+ *  merged back into master a few commits later, the rest are left open.
+ *  The first commit adds FILES text files whose sizes are log-normally
+ *  distributed around SIZE bytes, with SIZE-SPREAD as the log-scale
+ *  standard deviation. Each later commit edits a share CHURN of the files
+ *  and, with probability GROWTH, adds a new one (and with a quarter of that
+ *  deletes one). Commits are dated an hour or so apart, ending now.
+ *
+ *  Usage: java gitlet.Generator [--depth=N] [--branches=N] [--branch-length=N]
+ *             [--merge-rate=F] [--files=N] [--size=BYTES] [--size-spread=F]
+ *             [--churn=F] [--growth=F] [--seed=N]
+ *
+ *  The same options and seed always give the same files and messages.
+ *
+ *  @author Jenny Nguyen
+ */
+public class Generator {
+    private static final String[] WORDS = {
+        "parser", "cache", "index", "merge", "branch", "commit", "blob", "stage",
+        "status", "log", "checkout", "reset", "buffer", "stream", "hash", "tree",
+        "config", "loader", "writer", "reader", "graph", "pack", "delta", "daemon",
+        "client", "socket", "error", "message", "format", "path", "file", "folder",
+        "test", "docs", "build", "script", "helper", "option", "flag", "limit",
+    };
+    private static final String[] VERBS = {
+        "Fix", "Add", "Update", "Remove", "Refactor", "Speed up", "Clean up", "Document",
+    };
+
+    private int depth = 200;
+    private int branches = 8;
+    private int branchLength = 5;
+    private double mergeRate = 0.5;
+    private int files = 200;
+    private int size = 2048;
+    private double sizeSpread = 1.0;
+    private double churn = 0.02;
+    private double growth = 0.1;
+    private long seed = 1;
+
+    private Random random;
+    private long clock; // time of the last commit made, in ms
+    private int nextFile;
+    private int commits;
+
+    /** A branch waiting to be merged back into master. */
+    private static class Fork {
+        private final String name;
+        private final TreeMap<String, String> base; // files where it left master
+        private final TreeMap<String, String> blobs; // files at its tip
+        private final int mergeAt; // master commit that merges it
+
+        Fork(String n, TreeMap<String, String> b, TreeMap<String, String> t, int m) {
+            name = n;
+            base = b;
+            blobs = t;
+            mergeAt = m;
+        }
+    }
+
+    public static void main(String[] args) {
+        Generator g = new Generator();
+        for (String arg : args) {
+            if (!g.option(arg)) {
+                throw new IllegalArgumentException("unknown option " + arg);
+            }
+        }
+        if (Repository.GITLET_DIR.exists()) {
+            throw new IllegalArgumentException("there is already a repository here");
+        }
+        g.generate(new Repository());
+    }
+
+    /** Takes in one --name=value option, returning false if it is not one
+     *  of the generator's. */
+    boolean option(String arg) {
+        int eq = arg.indexOf('=');
+        if (!arg.startsWith("--") || eq < 0) {
+            return false;
+        }
+        String value = arg.substring(eq + 1);
+        switch (arg.substring(2, eq)) {
+            case "depth":
+                depth = Integer.parseInt(value);
+                break;
+            case "branches":
+                branches = Integer.parseInt(value);
+                break;
+            case "branch-length":
+                branchLength = Integer.parseInt(value);
+                break;
+            case "merge-rate":
+                mergeRate = Double.parseDouble(value);
+                break;
+            case "files":
+                files = Integer.parseInt(value);
+                break;
+            case "size":
+                size = Integer.parseInt(value);
+                break;
+            case "size-spread":
+                sizeSpread = Double.parseDouble(value);
+                break;
+            case "churn":
+                churn = Double.parseDouble(value);
+                break;
+            case "growth":
+                growth = Double.parseDouble(value);
+                break;
+            case "seed":
+                seed = Long.parseLong(value);
+                break;
+            default:
+                return false;
+        }
+        return true;
+    }
+
+    void generate(Repository repo) {
+        if (depth < 1 || files < 1 || branches < 0 || branchLength < 1) {
+            throw new IllegalArgumentException("bad generator options");
+        }
+        random = new Random(seed);
+        clock = System.currentTimeMillis()
+                - TimeUnit.HOURS.toMillis(depth + (long) branches * branchLength + 1);
+        repo.init();
+        String tip = Fixture.headID();
+
+        TreeMap<String, String> blobs = new TreeMap<>();
+        for (int i = 0; i < files; i++) {
+            blobs.put(newName(), newBlob());
+        }
+        tip = commit("Add " + files + " files", tip, blobs);
+
+        int forkEvery = Math.max(1, depth / (branches + 1));
+        int forked = 0;
+        List<Fork> open = new ArrayList<>();
+        for (int c = 1; c < depth; c++) {
+            if (forked < branches && c % forkEvery == 0) {
+                open.add(branch("branch" + forked, tip, blobs, c));
+                forked++;
+            }
+            Fork due = null;
+            for (Fork f : open) {
+                if (f.mergeAt == c) {
+                    due = f;
+                }
+            }
+            if (due != null) {
+                open.remove(due);
+                merge(blobs, due);
+                tip = commit("Merged " + due.name + " into master.", tip, blobs);
+            } else {
+                change(blobs);
+                tip = commit(message(), tip, blobs);
+            }
+        }
+        Utils.writeContents(join(Repository.BRANCHES, "master"), tip);
+
+        // check out master's files, as if the last commit had just been made here
+        StatCache cache = new StatCache();
+        for (Map.Entry<String, String> e : blobs.entrySet()) {
+            File f = join(Repository.CWD, e.getKey());
+            f.getParentFile().mkdirs();
+            Blob.writeTo(e.getValue(), f);
+            cache.record(e.getKey(), e.getValue());
+        }
+        cache.saveCache();
+        TrackedFiles tracked = TrackedFiles.fromFile();
+        tracked.putFiles(blobs.keySet());
+        tracked.saveFiles();
+
+        // the commit log and message index are written in one go from the commits
+        Repository.COMMIT_LOG.delete();
+        CommitIndex.ensure();
+
+        System.out.println("commits " + commits);
+        System.out.println("branches " + branches);
+        System.out.println("files " + blobs.size());
+    }
+
+    /** Makes branch NAME off master commit TIP, whose files are BLOBS, and
+     *  commits to it. Returns the fork, to be merged at master commit
+     *  mergeAt, which is never reached if it is to stay unmerged. */
+    private Fork branch(String name, String tip, TreeMap<String, String> blobs, int at) {
+        TreeMap<String, String> mine = new TreeMap<>(blobs);
+        String branchTip = tip;
+        for (int k = 0; k < branchLength; k++) {
+            change(mine);
+            branchTip = commit(message(), branchTip, mine);
+        }
+        Utils.writeContents(join(Repository.BRANCHES, name), branchTip);
+        int mergeAt = random.nextDouble() < mergeRate ? at + 1 + random.nextInt(3) : -1;
+        return new Fork(name, new TreeMap<>(blobs), mine, mergeAt);
+    }
+
+    // takes every file the branch changed, added or deleted into master's BLOBS
+    private static void merge(TreeMap<String, String> blobs, Fork f) {
+        for (Map.Entry<String, String> e : f.blobs.entrySet()) {
+            if (!e.getValue().equals(f.base.get(e.getKey()))) {
+                blobs.put(e.getKey(), e.getValue());
+            }
+        }
+        for (String name : f.base.keySet()) {
+            if (!f.blobs.containsKey(name)) {
+                blobs.remove(name);
+            }
+        }
+    }
+
+    private String commit(String msg, String parent, TreeMap<String, String> blobs) {
+        clock += TimeUnit.MINUTES.toMillis(30 + random.nextInt(60));
+        Commit c = new Commit(msg, parent, blobs, new Date(clock));
+        c.saveCommit();
+        CommitGraph.append(c);
+        commits++;
+        return c.getID();
+    }
+
+    // edits, adds and deletes files in BLOBS as one commit's worth of work
+    private void change(TreeMap<String, String> blobs) {
+        List<String> names = new ArrayList<>(blobs.keySet());
+        int edits = Math.max(1, (int) Math.round(churn * names.size()));
+        for (int k = 0; k < edits; k++) {
+            String name = names.get(random.nextInt(names.size()));
+            blobs.put(name, Blob.store(edit(Blob.fromFile(blobs.get(name)).getText())
+                    .getBytes(StandardCharsets.UTF_8)));
+        }
+        if (random.nextDouble() < growth) {
+            blobs.put(newName(), newBlob());
+        }
+        if (names.size() > 1 && random.nextDouble() < growth / 4) {
+            blobs.remove(names.get(random.nextInt(names.size())));
+        }
+    }
+
+    // TEXT with a few of its lines replaced by new ones
+    private String edit(String text) {
+        String[] lines = text.split("\n", -1);
+        int from = random.nextInt(lines.length);
+        int to = Math.min(lines.length, from + 1 + random.nextInt(5));
+        StringBuilder sb = new StringBuilder(text.length() + 64);
+        for (int i = 0; i < lines.length; i++) {
+            if (i == from) {
+                sb.append(text(40 * (to - from)));
+            }
+            if (i < from || i >= to) {
+                sb.append(lines[i]);
+                if (i < lines.length - 1) {
+                    sb.append('\n');
+                }
+            }
+        }
+        return sb.toString();
+    }
+
+    // about LENGTH characters of lines made of words
+    private String text(int length) {
+        StringBuilder sb = new StringBuilder(length + 16);
+        int lineStart = 0;
+        while (sb.length() < length) {
+            sb.append(WORDS[random.nextInt(WORDS.length)]);
+            if (sb.length() - lineStart > 60) {
+                sb.append('\n');
+                lineStart = sb.length();
+            } else {
+                sb.append(' ');
+            }
+        }
+        return sb.toString();
+    }
+
+    // stores a new file of random size and returns its blob ID
+    private String newBlob() {
+        return Blob.store(text(fileSize()).getBytes(StandardCharsets.UTF_8));
+    }
+
+    private int fileSize() {
+        double s = size * Math.exp(sizeSpread * random.nextGaussian());
+        return (int) Math.max(1, Math.min(s, 64.0 * size));
+    }
+
+    private String newName() {
+        int n = nextFile++;
+        return "src/module" + (n / 20) + "/" + WORDS[n % WORDS.length] + n + ".txt";
+    }
+
+    private String message() {
+        StringBuilder sb = new StringBuilder(VERBS[random.nextInt(VERBS.length)]);
+        int n = 2 + random.nextInt(4);
+        for (int k = 0; k < n; k++) {
+            sb.append(' ').append(WORDS[random.nextInt(WORDS.length)]);
+        }
+        return sb.toString();
+    }
+}
@@ -0,0 +1,201 @@
+package gitlet;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+
+/** Times log (all of it and the last 20 commits), global-log, find,
+ *  status, checkout, reset and merge against a large repository and
+ *  reports the results, so runs of different releases can be compared.
+ *
+ *  Without --repo a repository is first made by Generator in a scratch
+ *  directory, using whatever generator options are given, and deleted
+ *  afterwards. With --repo the given repository is used instead; master
+ *  must be checked out and have no uncommitted changes, and it is left
+ *  that way. Each command runs in its own JVM, WARMUP times untimed and
+ *  then ITERATIONS times timed, and the time of the very first run is
+ *  reported too, since that is what someone typing the command waits for.
+ *
+ *  Usage: java gitlet.ScaleTest [--repo=DIR] [--ops=log,...] [--warmup=N]
+ *             [--iterations=N] [--label=NAME] [--csv=FILE] [--json=FILE]
+ *             [generator options]
+ *
+ *  The results are printed as a table, appended to the CSV file and
+ *  written to the JSON file, each row tagged with LABEL, which would
+ *  usually be the release being measured.
+ *
+ *  @author Jenny Nguyen
+ */
+public class ScaleTest {
+    private static final String[] COLUMNS = {
+        "label", "op", "commits", "branches", "files", "iterations", "cold_ms", "mean_ms",
+        "p50_ms", "p90_ms", "p99_ms", "max_ms", "alloc_per_op", "gc_count", "gc_ms",
+    };
+
+    private final Generator generator = new Generator();
+    private List<String> generatorArgs = new ArrayList<>();
+    private File repo;
+    private List<String> ops = Arrays.asList(ScaleWorker.OPS);
+    private int warmup = 3;
+    private int iterations = 10;
+    private String label = "dev";
+    private File csv;
+    private File json;
+
+    public static void main(String[] args) throws IOException, InterruptedException {
+        ScaleTest test = new ScaleTest();
+        for (String arg : args) {
+            test.option(arg);
+        }
+        test.run();
+    }
+
+    private void option(String arg) {
+        if (generator.option(arg)) {
+            generatorArgs.add(arg);
+            return;
+        }
+        int eq = arg.indexOf('=');
+        if (!arg.startsWith("--") || eq < 0) {
+            throw new IllegalArgumentException("bad option " + arg);
+        }
+        String value = arg.substring(eq + 1);
+        switch (arg.substring(2, eq)) {
+            case "repo":
+                repo = new File(value).getAbsoluteFile();
+                break;
+            case "ops":
+                ops = Arrays.asList(value.split(","));
+                break;
+            case "warmup":
+                warmup = Integer.parseInt(value);
+                break;
+            case "iterations":
+                iterations = Integer.parseInt(value);
+                break;
+            case "label":
+                label = value;
+                break;
+            case "csv":
+                csv = new File(value);
+                break;
+            case "json":
+                json = new File(value);
+                break;
+            default:
+                throw new IllegalArgumentException("unknown option " + arg);
+        }
+    }
+
+    private void run() throws IOException, InterruptedException {
+        Path dir;
+        if (repo != null) {
+            dir = repo.toPath();
+        } else {
+            dir = Files.createTempDirectory("gitlet-scale");
+            System.out.println("Generating a repository in " + dir);
+            if (Bench.runJava(dir, "gitlet.Generator", generatorArgs.toArray(new String[0]))
+                    == null) {
+                Bench.deleteTree(dir);
+                throw new IllegalArgumentException("could not generate the repository");
+            }
+        }
+        try {
+            List<String[]> rows = new ArrayList<>();
+            System.out.println(String.join("\t", COLUMNS));
+            for (String op : ops) {
+                String[] row = measure(dir, op);
+                if (row != null) {
+                    rows.add(row);
+                    System.out.println(String.join("\t", row));
+                } else {
+                    System.out.println(label + "\t" + op + "\tfailed, see above");
+                }
+            }
+            if (csv != null) {
+                writeCsv(rows);
+            }
+            if (json != null) {
+                writeJson(rows);
+            }
+        } finally {
+            if (repo == null) {
+                Bench.deleteTree(dir);
+            }
+        }
+    }
+
+    // one report row for OP, or null if its worker failed
+    private String[] measure(Path dir, String op) throws IOException, InterruptedException {
+        List<String> out = Bench.runJava(dir, "gitlet.ScaleWorker", op, "" + warmup,
+                "" + iterations);
+        if (out == null || out.size() < 3) {
+            return null;
+        }
+        String[] repoStats = out.get(out.size() - 3).split(" ");
+        long[] times = Arrays.stream(out.get(out.size() - 2).split(" "))
+                .mapToLong(Long::parseLong).sorted().toArray();
+        String[] totals = out.get(out.size() - 1).split(" ");
+        long total = Arrays.stream(times).sum();
+        return new String[] {
+            label, op, repoStats[0], repoStats[1], repoStats[2], "" + times.length,
+            ms(Long.parseLong(totals[3]) / 1e6), ms(total / 1e6 / times.length),
+            ms(Bench.millis(times, 0.50)), ms(Bench.millis(times, 0.90)),
+            ms(Bench.millis(times, 0.99)), ms(times[times.length - 1] / 1e6),
+            "" + Long.parseLong(totals[0]) / times.length, totals[1], totals[2],
+        };
+    }
+
+    private static String ms(double millis) {
+        return String.format(Locale.ROOT, "%.3f", millis);
+    }
+
+    // adds ROWS to the CSV file, starting it with a header if it is new
+    private void writeCsv(List<String[]> rows) throws IOException {
+        StringBuilder sb = new StringBuilder();
+        if (!csv.exists() || csv.length() == 0) {
+            sb.append(String.join(",", COLUMNS)).append('\n');
+        }
+        for (String[] row : rows) {
+            List<String> cells = new ArrayList<>();
+            for (String cell : row) {
+                cells.add(cell.contains(",") || cell.contains("\"")
+                        ? "\"" + cell.replace("\"", "\"\"") + "\"" : cell);
+            }
+            sb.append(String.join(",", cells)).append('\n');
+        }
+        Files.write(csv.toPath(), sb.toString().getBytes(StandardCharsets.UTF_8),
+                StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+    }
+
+    // writes ROWS to the JSON file as an array of objects, label and op as strings
+    private void writeJson(List<String[]> rows) throws IOException {
+        StringBuilder sb = new StringBuilder("[\n");
+        for (int r = 0; r < rows.size(); r++) {
+            sb.append("  {");
+            for (int c = 0; c < COLUMNS.length; c++) {
+                String cell = rows.get(r)[c];
+                if (c > 0) {
+                    sb.append(", ");
+                }
+                sb.append('"').append(COLUMNS[c]).append("\": ");
+                if (c < 2) {
+                    sb.append('"').append(cell.replace("\\", "\\\\").replace("\"", "\\\""))
+                            .append('"');
+                } else {
+                    sb.append(cell);
+                }
+            }
+            sb.append(r < rows.size() - 1 ? "},\n" : "}\n");
+        }
+        sb.append("]\n");
+        Files.write(json.toPath(), sb.toString().getBytes(StandardCharsets.UTF_8));
+    }
+}
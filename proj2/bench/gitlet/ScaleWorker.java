@@ -0,0 +1,135 @@
+package gitlet;
+
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static gitlet.Utils.join;
+
+/** Times one command against the repository in the current directory, for
+ *  ScaleTest. Prints a line describing the repository (commits, branches,
+ *  files at master) and then BenchWorker's two result lines. Commands
+ *  that move HEAD are undone afterwards, leaving master checked out at the
+ *  commit it started at.
+ *
+ *  Usage: java gitlet.ScaleWorker OP WARMUP ITERATIONS
+ *
+ *  @author Jenny Nguyen
+ */
+class ScaleWorker {
+    static final String[] OPS = {
+        "log", "log-20", "global-log", "find", "status", "checkout", "reset", "merge",
+    };
+
+    public static void main(String[] args) {
+        String op = args[0];
+        int warmup = Integer.parseInt(args[1]);
+        int iterations = Integer.parseInt(args[2]);
+
+        PrintStream results = System.out;
+        System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+        Repository repo = new Repository();
+        if (!Utils.readContentsAsString(Repository.HEAD).equals("master")) {
+            throw new IllegalArgumentException("master must be checked out");
+        }
+        String tip = Fixture.headID();
+        results.println(Commit.allIDs().size() + " " + Repository.BRANCHES.list().length
+                + " " + Commit.fromFile(tip).getBlobs().size());
+
+        BenchWorker.time(operation(op, repo, tip), warmup, iterations, results);
+
+        if (!Utils.readContentsAsString(Repository.HEAD).equals("master")) {
+            repo.checkOutBranch("master", false);
+        }
+        if (op.equals("reset") || op.equals("merge")) {
+            undo(repo, tip, otherBranches());
+        }
+    }
+
+    private static BenchWorker.Operation operation(String op, Repository repo, String tip) {
+        switch (op) {
+            case "log":
+                return i -> repo.log();
+            case "log-20":
+                return i -> repo.log("-n", "20");
+            case "global-log":
+                return i -> repo.globalLog();
+            case "find":
+                List<String> messages = new ArrayList<>();
+                CommitIndex.scan(e -> messages.add(e.getMessage()));
+                String message = messages.get(messages.size() / 2);
+                return i -> repo.find(message);
+            case "status":
+                return i -> repo.status();
+            case "checkout":
+                List<String> others = otherBranches();
+                // others[0], master, others[1], master, ...
+                return i -> repo.checkOutBranch(i % 2 == 0 ? others.get(i / 2 % others.size())
+                        : "master", false);
+            case "reset":
+                List<String> history = new ArrayList<>();
+                CommitGraph.load().walk(tip, Collections.emptyList(),
+                        (id, time) -> history.add(id));
+                String old = history.get(history.size() / 2);
+                return i -> repo.reset(i % 2 == 0 ? old : tip);
+            case "merge":
+                List<String> unmerged = new ArrayList<>();
+                for (String b : otherBranches()) {
+                    String id = Utils.readContentsAsString(join(Repository.BRANCHES, b));
+                    if (!CommitGraph.load().isAncestor(id, tip)) {
+                        unmerged.add(b);
+                    }
+                }
+                if (unmerged.isEmpty()) {
+                    throw new IllegalArgumentException("no unmerged branches to merge");
+                }
+                return new BenchWorker.Operation() {
+                    @Override
+                    public void setup(int i) {
+                        undo(repo, tip, unmerged); // the previous merge, even a conflicted one
+                    }
+
+                    @Override
+                    public void run(int i) {
+                        try {
+                            repo.merge(unmerged.get(i % unmerged.size()));
+                        } catch (GitletException excp) {
+                            // a conflicted merge still did all its work
+                        }
+                    }
+                };
+            default:
+                throw new IllegalArgumentException("unknown operation " + op);
+        }
+    }
+
+    /** Resets to commit TIP, first deleting the files that a conflicted
+     *  merge of one of BRANCHES may have written but that TIP does not
+     *  track, which reset would leave in the way. */
+    private static void undo(Repository repo, String tip, List<String> branches) {
+        Commit head = Commit.fromFile(tip);
+        for (String b : branches) {
+            Commit other = Commit.fromFile(
+                    Utils.readContentsAsString(join(Repository.BRANCHES, b)));
+            for (String name : other.getBlobs().keySet()) {
+                if (head.getBlobID(name) == null) {
+                    join(Repository.CWD, name).delete();
+                }
+            }
+        }
+        repo.reset(tip);
+    }
+
+    private static List<String> otherBranches() {
+        List<String> names = new ArrayList<>(Arrays.asList(Repository.BRANCHES.list()));
+        names.remove("master");
+        if (names.isEmpty()) {
+            throw new IllegalArgumentException("the repository needs a branch besides master");
+        }
+        names.sort(null);
+        return names;
+    }
+}
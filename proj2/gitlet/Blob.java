@@ -1,26 +1,237 @@
 package gitlet;
+import java.io.ByteArrayOutputStream;
 import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.ObjectInputStream;
 import java.io.Serializable;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
 
 /** Contents of a file
- * Different versions of a file
+ * Different versions of a file, stored once in BLOB_FOLDER under the
+ * SHA-1 of their contents. Commits and the staging area only keep the ID.
+ * Files of Chunks.MIN_FILE bytes or more are stored as Chunks instead, under
+ * the same ID.
  */
 public class Blob implements Serializable {
-    private String text;
-    private String name;
+    // that of the first version of gitlet, whose commits and staging areas
+    // were Java-serialized with whole blobs inside them
+    private static final long serialVersionUID = -6702821038995037584L;
 
-    Blob(File f, String n) {
-        text = gitlet.Utils.readContentsAsString(f);
-        name = n;
+    private byte[] contents;
+    private String id; // sha1 of the file's contents
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    /** Blobs read by fromFile, mostly for merges and chunks of large files. */
+    private static final ObjectCache<Blob> LOADED =
+        new ObjectCache<>("blobs", 32L << 20, b -> 64 + b.contents.length);
+    // loose blobs at least this big are streamed; files of Chunks.MIN_FILE or more are
+    // chunked, so this must stay well below it to be reached at all
+    private static final long STREAM_SIZE = 64 * 1024;
+
+    private Blob(String i, byte[] c) {
+        id = i;
+        contents = c;
     }
 
     public String getText() {
-        return text;
+        return new String(contents, StandardCharsets.UTF_8);
+    }
+
+    public byte[] getContents() {
+        return contents;
+    }
+
+    public String getID() {
+        return id;
+    }
+
+    /** Reads the blob with the given ID out of BLOB_FOLDER. A chunked one
+     *  is put back together in memory, so use writeTo to copy it to a file. */
+    public static Blob fromFile(String id) {
+        Blob b = LOADED.get(id);
+        if (b != null) {
+            return b;
+        }
+        File inFile = Repository.looseObject(Repository.BLOB_FOLDER, id);
+        byte[] contents = null;
+        if (!inFile.exists()) {
+            contents = PackFile.read(id);
+            List<String> chunks = contents == null ? Chunks.read(id) : null;
+            if (chunks != null) {
+                ByteArrayOutputStream out = new ByteArrayOutputStream();
+                for (String chunk : chunks) {
+                    out.writeBytes(fromFile(chunk).contents);
+                }
+                contents = out.toByteArray();
+            }
+        }
+        b = new Blob(id, contents != null ? contents : Utils.readContents(inFile));
+        LOADED.put(id, b);
+        return b;
+    }
+
+    /** Writes the contents of blob ID to F, replacing whatever F held. A
+     *  large loose blob is copied with transferTo, so however big it is it
+     *  never passes through the heap; packed blobs are small enough to
+     *  inflate, and small files are quicker to copy with one read. */
+    public static void writeTo(String id, File f) {
+        File inFile = Repository.looseObject(Repository.BLOB_FOLDER, id);
+        if (!inFile.exists()) {
+            List<String> chunks = Chunks.read(id);
+            if (chunks != null) {
+                Chunks.writeTo(chunks, f);
+                return;
+            }
+            byte[] packed = PackFile.read(id);
+            if (packed != null) {
+                Utils.writeContents(f, packed);
+                return;
+            }
+        }
+        if (inFile.length() < STREAM_SIZE) {
+            Utils.writeContents(f, Utils.readContents(inFile));
+            return;
+        }
+        try (FileChannel in = FileChannel.open(inFile.toPath());
+             FileChannel out = FileChannel.open(f.toPath(), StandardOpenOption.CREATE,
+                     StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            long size = in.size();
+            long done = 0;
+            while (done < size) {
+                done += in.transferTo(done, size - done, out);
+            }
+        } catch (IOException excp) {
+            throw new IllegalArgumentException(excp.getMessage());
+        }
+    }
+
+    // true if the blob with this ID is stored, loose or packed
+    public static boolean exists(String id) {
+        return Repository.looseObject(Repository.BLOB_FOLDER, id).exists()
+                || Chunks.exists(id) || PackFile.contains(id, PackFile.BLOB);
     }
 
-    public String getName() {
+    /** Blob ID of the contents of F, read as a stream rather than all at once. */
+    public static String hashFile(File f) {
+        MessageDigest md = sha1Digest();
+        byte[] buf = new byte[BUFFER_SIZE];
+        try (InputStream in = new FileInputStream(f)) {
+            int n;
+            while ((n = in.read(buf)) > 0) {
+                md.update(buf, 0, n);
+            }
+        } catch (IOException excp) {
+            throw new IllegalArgumentException(excp.getMessage());
+        }
+        return toHex(md.digest());
+    }
+
+    /** Copies F into the blob folder, hashing it on the way, and returns its
+     *  ID. The copy is named by what was actually read, so a file that
+     *  changes while this runs is still stored under the right ID. Large
+     *  files are stored as chunks. */
+    public static String storeFile(File f) {
+        if (f.length() >= Chunks.MIN_FILE) {
+            return Chunks.storeFile(f);
+        }
+        MessageDigest md = sha1Digest();
+        byte[] buf = new byte[BUFFER_SIZE];
+        File tmp;
+        try {
+            Repository.BLOB_FOLDER.mkdir();
+            tmp = File.createTempFile("blob", ".tmp", Repository.BLOB_FOLDER);
+            try (InputStream in = new FileInputStream(f);
+                 FileOutputStream out = new FileOutputStream(tmp)) {
+                int n;
+                while ((n = in.read(buf)) > 0) {
+                    md.update(buf, 0, n);
+                    out.write(buf, 0, n);
+                }
+            }
+            String id = toHex(md.digest());
+            moveInto(tmp, id);
+            return id;
+        } catch (IOException excp) {
+            throw new IllegalArgumentException(excp.getMessage());
+        }
+    }
+
+    /** Stores CONTENTS as a blob, unless it already is one, and returns its
+     *  ID. Like storeFile, it writes a temporary file and renames it, so a
+     *  crash never leaves a partial blob under a valid ID. */
+    public static String store(byte[] contents) {
+        String id = Utils.sha1(contents);
+        if (exists(id)) {
+            return id;
+        }
+        try {
+            Repository.BLOB_FOLDER.mkdir();
+            File tmp = File.createTempFile("blob", ".tmp", Repository.BLOB_FOLDER);
+            Files.write(tmp.toPath(), contents);
+            moveInto(tmp, id);
+            return id;
+        } catch (IOException excp) {
+            throw new IllegalArgumentException(excp.getMessage());
+        }
+    }
+
+    /** Stores every blob in FILES, a map read from the first version of
+     *  gitlet that holds whole Blobs where IDs are kept now, and returns
+     *  the map with IDs in their place. */
+    static TreeMap<String, String> storeInline(Map<String, ?> files) {
+        TreeMap<String, String> result = new TreeMap<>();
+        for (Map.Entry<String, ?> e : files.entrySet()) {
+            Object value = e.getValue();
+            result.put(e.getKey(), value instanceof Blob ? store(((Blob) value).contents)
+                    : (String) value);
+        }
+        return result;
+    }
+
+    // a Blob of the first version, which kept the file's text and name
+    private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException {
+        ObjectInputStream.GetField fields = in.readFields();
+        contents = ((String) fields.get("text", "")).getBytes(StandardCharsets.UTF_8);
+    }
+
+    // renames the fully written TMP to blob ID, or drops it if the blob is already stored
+    private static void moveInto(File tmp, String id) throws IOException {
+        File outFile = Repository.looseObject(Repository.BLOB_FOLDER, id);
+        if (exists(id)) {
+            tmp.delete();
+        } else {
+            outFile.getParentFile().mkdir();
+            Files.move(tmp.toPath(), outFile.toPath(), StandardCopyOption.ATOMIC_MOVE);
+        }
+    }
+
+    static MessageDigest sha1Digest() {
+        try {
+            return MessageDigest.getInstance("SHA-1");
+        } catch (NoSuchAlgorithmException excp) {
+            throw new IllegalArgumentException("System does not support SHA-1");
+        }
+    }
 
-        return name;
+    static String toHex(byte[] digest) {
+        StringBuilder sb = new StringBuilder(2 * digest.length);
+        for (byte b : digest) {
+            sb.append(String.format("%02x", b & 0xff));
+        }
+        return sb.toString();
     }
 
 }
@@ -0,0 +1,127 @@
+package gitlet;
+
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.security.MessageDigest;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+/** Large files stored as content-defined chunks. A file of at least
+ *  MIN_FILE bytes is cut wherever a rolling gear hash over roughly the last
+ *  64 bytes has its top BOUNDARY_BITS bits clear, so the cuts depend only on
+ *  nearby content: after an edit in the middle of a file, the chunks before
+ *  and after it come out exactly as they did before and are not stored
+ *  again. Each chunk is an ordinary blob (and so gets packed and deflated
+ *  like one); the file's own blob ID, the SHA-1 of all of its contents as
+ *  for any other blob, names a manifest in CHUNK_FOLDER listing its chunks.
+ *
+ *  Manifest: varint count, then each chunk's ID and varint length.
+ *
+ *  @author Jenny Nguyen
+ */
+class Chunks {
+    static final long MIN_FILE = 1L << 20;
+    private static final int MIN_CHUNK = 16 * 1024;
+    private static final int MAX_CHUNK = 256 * 1024;
+    private static final int BOUNDARY_BITS = 16; // a cut every 64 KB past MIN_CHUNK on average
+    private static final long BOUNDARY_MASK = -1L << (64 - BOUNDARY_BITS);
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    /** Random value for each byte. Fixed forever: changing it would move
+     *  every boundary and stop new chunks matching the stored ones. */
+    private static final long[] GEAR = new long[256];
+
+    static {
+        Random r = new Random(0x6769746c6574L);
+        for (int i = 0; i < GEAR.length; i++) {
+            GEAR[i] = r.nextLong();
+        }
+    }
+
+    /** Stores F as chunks, hashing the whole file on the way, and returns
+     *  its blob ID. Only one chunk is held in memory at a time, and chunks
+     *  that are already stored are not written again. */
+    static String storeFile(File f) {
+        MessageDigest md = Blob.sha1Digest();
+        List<String> ids = new ArrayList<>();
+        List<Integer> lengths = new ArrayList<>();
+        byte[] chunk = new byte[MAX_CHUNK];
+        byte[] buf = new byte[BUFFER_SIZE];
+        int len = 0;
+        long hash = 0;
+        try (InputStream in = new FileInputStream(f)) {
+            int n;
+            while ((n = in.read(buf)) > 0) {
+                md.update(buf, 0, n);
+                for (int i = 0; i < n; i++) {
+                    chunk[len++] = buf[i];
+                    hash = (hash << 1) + GEAR[buf[i] & 0xff];
+                    if ((len >= MIN_CHUNK && (hash & BOUNDARY_MASK) == 0) || len == MAX_CHUNK) {
+                        ids.add(Blob.store(Arrays.copyOf(chunk, len)));
+                        lengths.add(len);
+                        len = 0;
+                        hash = 0;
+                    }
+                }
+            }
+        } catch (IOException excp) {
+            throw new IllegalArgumentException(excp.getMessage());
+        }
+        if (len > 0) {
+            ids.add(Blob.store(Arrays.copyOf(chunk, len)));
+            lengths.add(len);
+        }
+
+        String id = Blob.toHex(md.digest());
+        if (!Blob.exists(id)) {
+            ObjectCodec.Writer out = new ObjectCodec.Writer(ObjectCodec.CHUNKS);
+            out.varint(ids.size());
+            for (int k = 0; k < ids.size(); k++) {
+                out.id(ids.get(k)).varint(lengths.get(k));
+            }
+            // renamed into place, so a crash never leaves a partial manifest
+            Repository.writeLooseObject(Repository.CHUNK_FOLDER, id, out.toByteArray());
+        }
+        return id;
+    }
+
+    // true if blob ID is stored as chunks
+    static boolean exists(String id) {
+        return Repository.looseObject(Repository.CHUNK_FOLDER, id).exists();
+    }
+
+    /** IDs of the chunks of blob ID in order, or null if it is not chunked. */
+    static List<String> read(String id) {
+        File inFile = Repository.looseObject(Repository.CHUNK_FOLDER, id);
+        if (!inFile.exists()) {
+            return null;
+        }
+        ObjectCodec.Reader in = new ObjectCodec.Reader(Utils.readContents(inFile),
+                ObjectCodec.CHUNKS);
+        int n = in.count();
+        List<String> ids = new ArrayList<>(n);
+        for (int k = 0; k < n; k++) {
+            ids.add(in.id());
+            in.count(); // length
+        }
+        return ids;
+    }
+
+    /** Writes the chunks CHUNKS one after another to F, replacing what F held. */
+    static void writeTo(List<String> chunks, File f) {
+        try (OutputStream out = new BufferedOutputStream(new FileOutputStream(f), BUFFER_SIZE)) {
+            for (String id : chunks) {
+                out.write(Blob.fromFile(id).getContents());
+            }
+        } catch (IOException excp) {
+            throw new IllegalArgumentException(excp.getMessage());
+        }
+    }
+}
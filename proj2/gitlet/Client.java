@@ -0,0 +1,73 @@
+package gitlet;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.UnixDomainSocketAddress;
+import java.nio.channels.Channels;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+
+/** Thin entry point for scripts: java gitlet.Client ARGS forwards ARGS to
+ *  the daemon for the current directory and prints its reply, and runs
+ *  the command itself through Main if no daemon is listening.
+ *
+ *  @author Jenny Nguyen
+ */
+public class Client {
+
+    public static void main(String[] args) {
+        File socket = new File(new File(System.getProperty("user.dir"), ".gitlet"),
+                "daemon.sock");
+        if (socket.exists() && forward(socket, args, System.out)) {
+            return;
+        }
+        Main.main(args);
+    }
+
+    /** True if a daemon is accepting connections on SOCKET. */
+    static boolean isServing(File socket) {
+        try {
+            SocketChannel.open(UnixDomainSocketAddress.of(socket.toPath())).close();
+            return true;
+        } catch (IOException excp) {
+            return false;
+        }
+    }
+
+    /** Sends ARGS to the daemon on SOCKET and copies its reply to REPLY.
+     *  Returns false if nothing is listening there. */
+    static boolean forward(File socket, String[] args, OutputStream reply) {
+        SocketChannel ch;
+        try {
+            ch = SocketChannel.open(UnixDomainSocketAddress.of(socket.toPath()));
+        } catch (IOException excp) {
+            return false; // stale socket file from a daemon that is gone
+        }
+        try (ch) {
+            DataOutputStream out = new DataOutputStream(new BufferedOutputStream(
+                    Channels.newOutputStream(ch)));
+            out.writeInt(args.length);
+            for (String arg : args) {
+                byte[] bytes = arg.getBytes(StandardCharsets.UTF_8);
+                out.writeInt(bytes.length);
+                out.write(bytes);
+            }
+            out.flush();
+
+            InputStream in = Channels.newInputStream(ch);
+            byte[] buf = new byte[8192];
+            int n;
+            while ((n = in.read(buf)) > 0) {
+                reply.write(buf, 0, n);
+            }
+            reply.flush();
+        } catch (IOException excp) {
+            throw new IllegalArgumentException(excp.getMessage());
+        }
+        return true;
+    }
+}
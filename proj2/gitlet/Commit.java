@@ -3,7 +3,13 @@ package gitlet;
 import java.io.Serializable;
 import java.io.File;
 import java.util.Date;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.TreeSet;
 import java.text.SimpleDateFormat;
+import java.util.SortedMap;
 import java.util.TreeMap;
 
 
@@ -13,13 +19,33 @@ import java.util.TreeMap;
  *  @author Jenny Nguyen
  */
 public class Commit implements Serializable {
+    /** That of the first version of gitlet, so the commits it Java-serialized
+     * can still be read (and migrated); new commits are stored with
+     * ObjectCodec instead. */
+    private static final long serialVersionUID = -4955087243772453852L;
+
     // store this object for it to be read later
     private String ID;
     private String date; // same date everytime
     private String commitMessage; // message of commit
     private String parentID; // for sha1 purposes
-    private TreeMap<String, Blob> blobs; // will point to the right version
-    SimpleDateFormat dt = new SimpleDateFormat("EEE MMM d HH:mm:ss yyyy Z");
+    private String mergeParentID; // head of the branch merged in, for merge commits
+    private TreeMap<String, String> blobs; // file name -> ID of the right blob version
+    private String tree; // root Tree of the snapshot, null if stored before trees
+    // files put or removed since the parent, until saved; null means none tracked
+    private transient TreeMap<String, String> pending;
+    // a version 1 encoding, whose inline file list is only decoded when first asked for
+    private transient byte[] inline;
+
+    /** Commits already read by this process. A commit weighs little until
+     * its file list is read, when it is weighed again. */
+    private static final ObjectCache<Commit> LOADED =
+        new ObjectCache<>("commits", 16L << 20, Commit::weight);
+
+    // forgets every loaded commit, so the benchmarks can time loads from disk
+    static void clearCache() {
+        LOADED.clear();
+    }
 
     /**
      *
@@ -29,22 +55,40 @@ public class Commit implements Serializable {
      */
 
     // commit0
+    // the ID is the hash of the encoded contents, so it is only known once saveCommit runs
     public Commit(String message) {
         this.commitMessage = message;
         this.parentID = null;
-        this.ID = Utils.sha1(Utils.serialize(this));
-
         this.date = "Thu Jan 1 00:00:00 1970 +0000";
         this.blobs = new TreeMap<>();
     }
 
-    public Commit(String message, String parent, TreeMap<String, Blob> oldBlob) {
+    /** A child of PARENT that starts out with the same files. Only the
+     * directories holding files changed with putBlob or removeBlob are
+     * written again when it is saved; the rest of the tree is shared. */
+    public Commit(String message, Commit parent) {
+        this(message, parent, null);
+    }
+
+    /** As above, for a merge of commit MERGEPARENT into PARENT. */
+    Commit(String message, Commit parent, String mergeParent) {
+        this.commitMessage = message;
+        this.parentID = parent.getID();
+        this.mergeParentID = mergeParent;
+        this.date = new SimpleDateFormat("EEE MMM d HH:mm:ss yyyy Z").format(new Date());
+        this.tree = parent.tree;
+        if (tree == null) {
+            this.blobs = new TreeMap<>(parent.getBlobs());
+        }
+        this.pending = new TreeMap<>();
+    }
+
+    // a commit made at time WHEN rather than now, as the repository generator needs
+    Commit(String message, String parent, TreeMap<String, String> oldBlob, Date when) {
         this.commitMessage = message;
         this.parentID = parent;
-        this.ID = Utils.sha1(Utils.serialize(this));
-        Date d = new Date();
-        this.date = dt.format(d);
-        this.blobs = oldBlob;
+        this.date = new SimpleDateFormat("EEE MMM d HH:mm:ss yyyy Z").format(when);
+        this.blobs = new TreeMap<>(oldBlob); // own copy; the parent may be cached
     }
 
 
@@ -57,19 +101,86 @@ public class Commit implements Serializable {
     public String getParent() {
         return this.parentID;
     }
+    // the head of the branch this commit merged in, or null if it is not a merge
+    public String getMergeParent() {
+        return this.mergeParentID;
+    }
     public String getID() {
 
         return this.ID;
     }
-    public TreeMap<String, Blob> getBlobs() {
+    // every file in this commit, read from the tree the first time it is needed
+    public TreeMap<String, String> getBlobs() {
+        if (blobs == null) {
+            blobs = tree != null ? Tree.flatten(tree) : readInline();
+            if (pending != null) {
+                for (Map.Entry<String, String> e : pending.entrySet()) {
+                    if (e.getValue() == null) {
+                        blobs.remove(e.getKey());
+                    } else {
+                        blobs.put(e.getKey(), e.getValue());
+                    }
+                }
+            }
+            if (ID != null && LOADED.contains(ID)) {
+                LOADED.put(ID, this); // now holds the whole file list
+            }
+        }
         return blobs;
 
     }
 
-    public Blob getBlob(String key) {
-        if (blobs.containsKey(key)) {
+    // ID of the version of file KEY in this commit, without reading its contents
+    public String getBlobID(String key) {
+        if (blobs != null) {
             return blobs.get(key);
         }
+        if (pending != null && pending.containsKey(key)) {
+            return pending.get(key);
+        }
+        if (tree == null) {
+            return getBlobs().get(key);
+        }
+        return Tree.lookup(tree, key); // only the directories on KEY's path
+    }
+
+    /** Something that changes exactly when what this commit has at PATH, a
+     *  file or a whole directory, changes: the ID of its blob or tree, or
+     *  null if there is nothing there. */
+    String versionOf(String path) {
+        if (tree != null && pending == null) {
+            return Tree.entryID(tree, path);
+        }
+        String id = getBlobs().get(path);
+        if (id != null) {
+            return id;
+        }
+        SortedMap<String, String> dir = getBlobs().subMap(path + "/", path + "0"); // '0' follows '/'
+        return dir.isEmpty() ? null : dir.toString();
+    }
+
+    // the file list of a version 1 encoding, skipping the header that fromBytes read
+    private TreeMap<String, String> readInline() {
+        ObjectCodec.Reader in = new ObjectCodec.Reader(inline, ObjectCodec.COMMIT);
+        in.id();
+        in.string();
+        in.id();
+        in.string();
+        TreeMap<String, String> result = new TreeMap<>();
+        int n = in.count();
+        for (int i = 0; i < n; i++) {
+            result.put(in.path(), in.id());
+        }
+        inline = null;
+        return result;
+    }
+
+    // loads the contents of file KEY from the blob folder, null if not tracked
+    public Blob getBlob(String key) {
+        String id = getBlobID(key);
+        if (id != null) {
+            return Blob.fromFile(id);
+        }
         return null;
     }
 
@@ -77,14 +188,42 @@ public class Commit implements Serializable {
 
     // remove old version of blob from hashmap, only need String
     public void removeBlob(String name) {
-        if (blobs.containsKey(name)) {
+        if (blobs != null) {
             blobs.remove(name);
         }
+        if (pending != null) {
+            pending.put(name, null);
+        }
+    }
+    // points file NAME at the blob with the given ID
+    public void putBlob(String name, String blobID) {
+        if (blobs != null) {
+            blobs.put(name, blobID);
+        }
+        if (pending != null) {
+            pending.put(name, blobID);
+        }
     }
-    // puts new version of blob in hash map PROBABLY WRONG; string blob name and serialize
-    public void putBlob(Blob b) {
-        String name = b.getName();
-        blobs.put(name, b);
+
+    /** Files that differ between commits FROM and TO, in path order. Their
+     *  trees are compared, skipping every directory they share, unless one
+     *  of them was stored before commits had trees. */
+    static List<Tree.Change> diff(Commit from, Commit to) {
+        if (from.tree != null && to.tree != null && from.pending == null
+                && to.pending == null) {
+            return Tree.diff(from.tree, to.tree);
+        }
+        TreeMap<String, String> a = from.getBlobs();
+        TreeMap<String, String> b = to.getBlobs();
+        TreeSet<String> names = new TreeSet<>(a.keySet());
+        names.addAll(b.keySet());
+        List<Tree.Change> result = new ArrayList<>();
+        for (String name : names) {
+            if (!Objects.equals(a.get(name), b.get(name))) {
+                result.add(new Tree.Change(name, a.get(name), b.get(name)));
+            }
+        }
+        return result;
     }
 
     /**
@@ -95,25 +234,104 @@ public class Commit implements Serializable {
      */
 
     public static Commit fromFile(String name) {
-        File inFile = Utils.join(Repository.COMMIT_FOLDER, name);
-        return Utils.readObject(inFile, Commit.class);
+        Commit c = LOADED.get(name);
+        if (c != null) {
+            return c;
+        }
+        File inFile = Repository.looseObject(Repository.COMMIT_FOLDER, name);
+        byte[] packed = inFile.exists() ? null : PackFile.read(name);
+        c = fromBytes(packed != null ? packed : Utils.readContents(inFile));
+        LOADED.put(name, c);
+        return c;
     }
 
-    // saves commit into commit folder
-    public void saveCommit() {
-        File outFile = Utils.join(Repository.COMMIT_FOLDER, this.ID);
-        Utils.writeObject(outFile, this);
+    // rough size in memory, in bytes, for the cache
+    private long weight() {
+        long w = 256 + 2L * commitMessage.length();
+        if (blobs != null) {
+            w += 160L * blobs.size(); // map entry, path and blob ID
+        } else if (inline != null) {
+            w += inline.length;
+        }
+        return w;
+    }
+
+    /** Decodes a commit stored with ObjectCodec, or by Java serialization. */
+    static Commit fromBytes(byte[] bytes) {
+        if (ObjectCodec.isLegacy(bytes)) {
+            Commit c = ObjectCodec.readLegacy(bytes, Commit.class);
+            c.blobs = Blob.storeInline(c.blobs); // its files were kept inside it
+            return c;
+        }
+        ObjectCodec.Reader in = new ObjectCodec.Reader(bytes, ObjectCodec.COMMIT);
+        Commit c = new Commit(null);
+        c.ID = in.id();
+        c.commitMessage = in.string();
+        c.parentID = in.id();
+        c.date = in.string();
+        if (in.version() >= 2) {
+            c.tree = in.id();
+            c.blobs = null; // read from the tree when first asked for
+            if (!in.atEnd()) {
+                c.mergeParentID = in.id();
+            }
+        } else {
+            c.blobs = null; // version 1 kept every file in the commit itself
+            c.inline = bytes;
+        }
+        return c;
+    }
+
+    // true if BYTES hold a commit in an older format than saveCommit writes
+    static boolean isOutdated(byte[] bytes) {
+        return ObjectCodec.isLegacy(bytes)
+                || new ObjectCodec.Reader(bytes, ObjectCodec.COMMIT).version() < 2;
     }
 
-    public Boolean matchWithMessage(String msg) {
-        if (msg.equals(getMessage())) {
-            return true;
+    // the stored form of this commit, with ID written in as given
+    private byte[] encode(String id) {
+        ObjectCodec.Writer out = new ObjectCodec.Writer(ObjectCodec.COMMIT);
+        out.id(id).string(commitMessage).id(parentID).string(date).id(tree);
+        if (mergeParentID != null) {
+            out.id(mergeParentID); // after the rest, so older versions still read the commit
         }
-        return false;
+        return out.toByteArray();
     }
 
-    public void changeBlobs(TreeMap<String, Blob> newBlobs) {
-        this.blobs = newBlobs;
+    // IDs of every commit in the repository, loose and packed
+    public static List<String> allIDs() {
+        return withPrefix("");
+    }
+
+    // IDs of the commits, loose or packed, whose IDs start with PREFIX, in sorted order
+    public static List<String> withPrefix(String prefix) {
+        TreeSet<String> ids = new TreeSet<>(PackFile.idsWithPrefix(prefix, PackFile.COMMIT));
+        for (File f : Repository.looseObjects(Repository.COMMIT_FOLDER, prefix)) {
+            ids.add(Repository.looseID(f));
+        }
+        return new ArrayList<>(ids);
+    }
+
+    // writes the snapshot's trees, fixes the ID as the hash of everything
+    // else, then saves commit into commit folder
+    public void saveCommit() {
+        if (tree == null) {
+            tree = Tree.write(getBlobs());
+        } else if (pending != null && !pending.isEmpty()) {
+            tree = Tree.update(tree, pending);
+        }
+        pending = null;
+        this.ID = Utils.sha1(encode(null));
+        writeTo(Repository.looseObject(Repository.COMMIT_FOLDER, this.ID));
+    }
+
+    // writes this commit to OUTFILE as it is, keeping its ID
+    void writeTo(File outFile) {
+        if (tree == null) {
+            tree = Tree.write(getBlobs()); // a commit from before trees, being migrated
+        }
+        outFile.getParentFile().mkdir();
+        Utils.writeContents(outFile, encode(this.ID));
     }
 
 
@@ -0,0 +1,577 @@
+package gitlet;
+
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.text.ParseException;
+import java.text.SimpleDateFormat;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.function.BiPredicate;
+
+/** The commit-graph file: one fixed-width record per commit, appended in the
+ *  order commits are made so parents always come before their children.
+ *  Ancestry questions are answered from the memory-mapped records alone,
+ *  without deserializing any Commit.
+ *
+ *  Record: 20-byte ID, 4-byte positions of the parent record and of the
+ *  merged-in parent's record (-1 where there is none), 4-byte generation
+ *  number (1 + the larger of the parents'), 8-byte commit time in seconds.
+ *  Graphs of version 1, whose records had no merged-in parent, are written
+ *  again when first loaded.
+ *
+ *  COMMIT_LOOKUP finds a record by commit ID. It is a header with the
+ *  number of records it covers, a fan-out table like the pack index's, then
+ *  an ID and a position for each of those records, sorted by ID, so a
+ *  lookup is a binary search. Records appended since it was written are
+ *  searched one by one, and it is written again once there are more than
+ *  MAX_UNSORTED of them.
+ *
+ *  Each record also has a PathFilter of the paths the commit changed from
+ *  its first parent. Their bytes are appended to PATH_FILTER_DATA, and
+ *  PATH_FILTERS holds, for each record in order, the 8-byte offset in the
+ *  data where its filter ends. Graphs written before the filters existed
+ *  have fewer of them than records; the missing ones match every path.
+ *
+ *  @author Jenny Nguyen
+ */
+public class CommitGraph {
+    private static final int MAGIC = 0x47475246; // "GGRF"
+    private static final int VERSION = 2;
+    private static final int HEADER_SIZE = 8;
+    private static final int ID_SIZE = 20;
+    private static final int RECORD_SIZE = ID_SIZE + 4 + 4 + 4 + 8;
+    private static final int NONE = -1;
+
+    private static final int LOOKUP_MAGIC = 0x474c4b50; // "GLKP"
+    private static final int LOOKUP_HEADER_SIZE = 8;
+    private static final int FANOUT_SIZE = 256 * 4;
+    private static final int LOOKUP_SIZE = ID_SIZE + 4;
+    private static final int MAX_UNSORTED = 256;
+
+    // the sides mergeBase has reached a commit from
+    private static final int FROM_A = 1;
+    private static final int FROM_B = 2;
+
+    /** The graph loaded by this process, dropped whenever a record is added. */
+    private static CommitGraph current;
+
+    private MappedByteBuffer records;
+    private int count;
+    private MappedByteBuffer filterEnds;
+    private MappedByteBuffer filters;
+    private int filterCount;
+    private MappedByteBuffer lookup;
+    private int sorted; // records covered by LOOKUP; the rest are searched in order
+
+    private CommitGraph() {
+        open();
+    }
+
+    // maps the graph's files as they are now
+    private void open() {
+        records = map(Repository.COMMIT_GRAPH);
+        if (records.getInt(0) != MAGIC || records.getInt(4) != VERSION) {
+            throw new IllegalArgumentException("corrupt commit-graph file");
+        }
+        count = (records.capacity() - HEADER_SIZE) / RECORD_SIZE;
+        filterEnds = map(Repository.PATH_FILTERS);
+        filters = map(Repository.PATH_FILTER_DATA);
+        filterCount = filterEnds == null || filters == null ? 0 : filterEnds.capacity() / 8;
+        lookup = map(Repository.COMMIT_LOOKUP);
+        sorted = lookup == null || lookup.getInt(0) != LOOKUP_MAGIC ? 0
+                : Math.min(lookup.getInt(4), count);
+    }
+
+    /** The repository's commit graph, written from the stored commits first
+     *  if this repository does not have one yet or has an older version. */
+    static CommitGraph load() {
+        if (current == null) {
+            if (!Repository.COMMIT_GRAPH.exists() || storedVersion() != VERSION) {
+                rebuild();
+            }
+            current = new CommitGraph();
+        }
+        return current;
+    }
+
+    // the version in the graph file's header, or -1 if it has none
+    private static int storedVersion() {
+        try (DataInputStream in = new DataInputStream(
+                new FileInputStream(Repository.COMMIT_GRAPH))) {
+            return in.readInt() == MAGIC ? in.readInt() : -1;
+        } catch (IOException excp) {
+            return -1;
+        }
+    }
+
+    // maps file F read-only, or returns null if it does not exist
+    private static MappedByteBuffer map(File f) {
+        if (!f.exists()) {
+            return null;
+        }
+        try (FileChannel ch = FileChannel.open(f.toPath())) {
+            return ch.map(FileChannel.MapMode.READ_ONLY, 0, ch.size());
+        } catch (IOException excp) {
+            throw new IllegalArgumentException(excp.getMessage());
+        }
+    }
+
+    /** Drops the loaded graph if the file has grown or been replaced by
+     *  another process. Called by the daemon before each command. */
+    static void refresh() {
+        if (current != null && (!Repository.COMMIT_GRAPH.exists()
+                || Repository.COMMIT_GRAPH.length() != current.records.capacity())) {
+            current = null;
+        }
+    }
+
+    /** Adds a record for commit C, whose parents must already be stored,
+     *  and the filter of the paths it changed. */
+    static void append(Commit c) {
+        int[] parents = {NONE, NONE};
+        int generation = 1;
+        CommitGraph graph = null;
+        if (c.getParent() != null) {
+            graph = load();
+            parents = graph.positions(c.getParent(), c.getMergeParent());
+            if (graph.find(c.getID()) != NONE) {
+                return; // already picked up when the graph was written from the stored commits
+            }
+            generation = graph.generation(parents[0]) + 1;
+            if (parents[1] != NONE) {
+                generation = Math.max(generation, graph.generation(parents[1]) + 1);
+            }
+        } else if (!Repository.COMMIT_GRAPH.exists()) {
+            writeHeader();
+        }
+        int position = (int) ((Repository.COMMIT_GRAPH.length() - HEADER_SIZE) / RECORD_SIZE);
+        appendFilter(position, PathFilter.of(changedPaths(c, null)));
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(
+                new FileOutputStream(Repository.COMMIT_GRAPH, true)))) {
+            writeRecord(out, c.getID(), parents[0], parents[1], generation,
+                    timestamp(c.getDate()));
+        } catch (IOException excp) {
+            throw new IllegalArgumentException(excp.getMessage());
+        }
+        current = null;
+        if (graph != null && position + 1 - graph.sorted > MAX_UNSORTED) {
+            load().writeLookup();
+        }
+    }
+
+    /** Writes FILTER as the one for the record at POSITION. Filters the
+     *  graph has no record for, left by a commit that stopped half way, are
+     *  dropped first; records from before there were filters get empty
+     *  ones, which match everything. The end offset is written last, so the
+     *  filter only counts once all of it is there. */
+    private static void appendFilter(int position, byte[] filter) {
+        try (FileChannel ends = FileChannel.open(Repository.PATH_FILTERS.toPath(),
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.READ);
+             FileChannel data = FileChannel.open(Repository.PATH_FILTER_DATA.toPath(),
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE)) {
+            long held = Math.min(ends.size() / 8, position);
+            ends.truncate(held * 8);
+            long end = 0;
+            if (held > 0) {
+                ByteBuffer last = ByteBuffer.allocate(8);
+                ends.read(last, (held - 1) * 8);
+                end = last.getLong(0);
+            }
+            data.truncate(end);
+            data.write(ByteBuffer.wrap(filter), end);
+            ByteBuffer entries = ByteBuffer.allocate((int) (position - held + 1) * 8);
+            for (long p = held; p < position; p++) {
+                entries.putLong(end);
+            }
+            entries.putLong(end + filter.length).flip();
+            ends.write(entries, held * 8);
+        } catch (IOException excp) {
+            throw new IllegalArgumentException(excp.getMessage());
+        }
+    }
+
+    /** ID of the latest common ancestor of commits A and B, through both
+     *  parents of merge commits, or null if they share no history.
+     *
+     *  Commits are visited highest generation first. A commit's descendants
+     *  all have higher generations, so by the time it is visited it has been
+     *  marked with every side it can be reached from, and the first one
+     *  reached from both is a common ancestor that no other is a descendant
+     *  of. After criss-cross merges there can be several such commits; the
+     *  one with the highest generation is taken, and of those the one
+     *  recorded last. */
+    String mergeBase(String a, String b) {
+        int[] p = positions(a, b);
+        if (p[0] == p[1]) {
+            return a;
+        }
+        HashMap<Integer, Integer> flags = new HashMap<>();
+        PriorityQueue<Integer> queue = new PriorityQueue<>((x, y) -> generation(x) != generation(y)
+                ? Integer.compare(generation(y), generation(x)) : Integer.compare(y, x));
+        flags.put(p[0], FROM_A);
+        flags.put(p[1], FROM_B);
+        queue.add(p[0]);
+        queue.add(p[1]);
+        while (!queue.isEmpty()) {
+            int q = queue.remove();
+            int f = flags.get(q);
+            if (f == (FROM_A | FROM_B)) {
+                return id(q);
+            }
+            for (int parent : new int[] {parent(q), mergeParent(q)}) {
+                if (parent == NONE) {
+                    continue;
+                }
+                int had = flags.getOrDefault(parent, 0);
+                if ((had | f) != had) {
+                    flags.put(parent, had | f);
+                    queue.add(parent);
+                }
+            }
+        }
+        return null;
+    }
+
+    /** True if commit ANCESTOR is reachable from commit DESCENDANT. Only
+     *  commits of a higher generation than ANCESTOR can lead to it. */
+    boolean isAncestor(String ancestor, String descendant) {
+        int[] p = positions(ancestor, descendant);
+        int gen = generation(p[0]);
+        ArrayDeque<Integer> todo = new ArrayDeque<>();
+        HashSet<Integer> seen = new HashSet<>();
+        todo.push(p[1]);
+        while (!todo.isEmpty()) {
+            int q = todo.pop();
+            if (q == p[0]) {
+                return true;
+            } else if (generation(q) <= gen) {
+                continue;
+            }
+            for (int parent : new int[] {parent(q), mergeParent(q)}) {
+                if (parent != NONE && seen.add(parent)) {
+                    todo.push(parent);
+                }
+            }
+        }
+        return false;
+    }
+
+    /** Walks the first-parent history of commit ID, newest first, handing
+     *  VISIT each commit's ID and time in seconds since the epoch until it
+     *  returns false. Only the records passed are read, and only commits
+     *  that may have changed one of PATHS, files or directories, by their
+     *  path filters; no commit that did is skipped. Every commit is visited
+     *  if PATHS is empty. */
+    void walk(String id, Collection<String> paths, BiPredicate<String, Long> visit) {
+        for (int p = positions(id)[0]; p != NONE; p = parent(p)) {
+            if (mayChange(p, paths) && !visit.test(id(p), time(p))) {
+                return;
+            }
+        }
+    }
+
+    // false if the commit at P certainly changed none of PATHS
+    private boolean mayChange(int p, Collection<String> paths) {
+        if (paths.isEmpty() || p >= filterCount) {
+            return true;
+        }
+        int start = p == 0 ? 0 : (int) filterEnds.getLong(8 * (p - 1));
+        int length = (int) filterEnds.getLong(8 * p) - start;
+        for (String path : paths) {
+            if (PathFilter.mayContain(filters, start, length, path)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /** Paths commit C changed from its first parent, or every path it has if
+     *  it is an initial commit. COMMITS, if not null, holds the parent. */
+    static Collection<String> changedPaths(Commit c, HashMap<String, Commit> commits) {
+        if (c.getParent() == null) {
+            return c.getBlobs().keySet();
+        }
+        Commit parent = commits != null ? commits.get(c.getParent())
+                : Commit.fromFile(c.getParent());
+        List<String> result = new ArrayList<>();
+        for (Tree.Change ch : Commit.diff(parent, c)) {
+            result.add(ch.getPath());
+        }
+        return result;
+    }
+
+    /** Positions of the records for commits IDS, NONE for a null ID. If one
+     *  is missing, as when the graph was lost or a commit was stored some
+     *  other way, the graph is written again from the stored commits, and a
+     *  commit still missing after that does not exist. */
+    private int[] positions(String... ids) {
+        int[] result = new int[ids.length];
+        for (boolean rebuilt = false; ; rebuilt = true) {
+            boolean missing = false;
+            for (int i = 0; i < ids.length; i++) {
+                result[i] = ids[i] == null ? NONE : find(ids[i]);
+                missing |= ids[i] != null && result[i] == NONE;
+            }
+            if (!missing) {
+                return result;
+            } else if (rebuilt) {
+                throw new GitletException("No commit with that id exists.");
+            }
+            rebuild();
+            open();
+            current = this;
+        }
+    }
+
+    /** Position of the record for commit ID, or NONE. The records added
+     *  since the lookup table was written are the likeliest targets, so they
+     *  are searched first, from the end; then the table is. */
+    private int find(String id) {
+        byte[] key = toBytes(id);
+        for (int p = count - 1; p >= sorted; p--) {
+            if (compareAt(record(p), key) == 0) {
+                return p;
+            }
+        }
+        if (sorted == 0) {
+            return NONE;
+        }
+        int first = key[0] & 0xff;
+        int lo = first == 0 ? 0 : lookup.getInt(LOOKUP_HEADER_SIZE + 4 * (first - 1));
+        int hi = lookup.getInt(LOOKUP_HEADER_SIZE + 4 * first);
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            int entry = LOOKUP_HEADER_SIZE + FANOUT_SIZE + mid * LOOKUP_SIZE;
+            int cmp = compareAt(lookup, entry, key);
+            if (cmp < 0) {
+                lo = mid + 1;
+            } else if (cmp > 0) {
+                hi = mid;
+            } else {
+                int p = lookup.getInt(entry + ID_SIZE);
+                // a table left over from before the graph was last rebuilt points elsewhere
+                return p < count && compareAt(record(p), key) == 0 ? p : scan(key);
+            }
+        }
+        return NONE;
+    }
+
+    // position of the record with ID KEY among all of them, or NONE
+    private int scan(byte[] key) {
+        for (int p = count - 1; p >= 0; p--) {
+            if (compareAt(record(p), key) == 0) {
+                return p;
+            }
+        }
+        return NONE;
+    }
+
+    // compares the ID at offset BASE in the records with KEY
+    private int compareAt(int base, byte[] key) {
+        return compareAt(records, base, key);
+    }
+
+    private static int compareAt(ByteBuffer buf, int base, byte[] key) {
+        for (int k = 0; k < ID_SIZE; k++) {
+            int cmp = Integer.compare(buf.get(base + k) & 0xff, key[k] & 0xff);
+            if (cmp != 0) {
+                return cmp;
+            }
+        }
+        return 0;
+    }
+
+    /** Writes the lookup table for every record, replacing the old one in
+     *  one rename. */
+    private void writeLookup() {
+        Integer[] order = new Integer[count];
+        byte[][] ids = new byte[count][];
+        for (int p = 0; p < count; p++) {
+            order[p] = p;
+            ids[p] = new byte[ID_SIZE];
+            records.get(record(p), ids[p]);
+        }
+        Arrays.sort(order, (x, y) -> Arrays.compareUnsigned(ids[x], ids[y]));
+        File tmp = Utils.join(Repository.GITLET_DIR, Repository.COMMIT_LOOKUP.getName() + ".tmp");
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(
+                new FileOutputStream(tmp)))) {
+            out.writeInt(LOOKUP_MAGIC);
+            out.writeInt(count);
+            int[] fanout = new int[256];
+            for (byte[] id : ids) {
+                fanout[id[0] & 0xff]++;
+            }
+            int total = 0;
+            for (int b = 0; b < 256; b++) {
+                total += fanout[b];
+                out.writeInt(total);
+            }
+            for (int p : order) {
+                out.write(ids[p]);
+                out.writeInt(p);
+            }
+        } catch (IOException excp) {
+            throw new IllegalArgumentException(excp.getMessage());
+        }
+        try {
+            Files.move(tmp.toPath(), Repository.COMMIT_LOOKUP.toPath(),
+                    StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException excp) {
+            throw new IllegalArgumentException(excp.getMessage());
+        }
+    }
+
+    // offset of record P in the graph file
+    private static int record(int p) {
+        return HEADER_SIZE + p * RECORD_SIZE;
+    }
+
+    private String id(int p) {
+        int base = record(p);
+        StringBuilder sb = new StringBuilder(2 * ID_SIZE);
+        for (int k = 0; k < ID_SIZE; k++) {
+            sb.append(String.format("%02x", records.get(base + k) & 0xff));
+        }
+        return sb.toString();
+    }
+
+    private int parent(int p) {
+        return records.getInt(record(p) + ID_SIZE);
+    }
+
+    // the record of the branch merged in by the commit at P, or NONE
+    private int mergeParent(int p) {
+        return records.getInt(record(p) + ID_SIZE + 4);
+    }
+
+    private int generation(int p) {
+        return records.getInt(record(p) + ID_SIZE + 8);
+    }
+
+    private long time(int p) {
+        return records.getLong(record(p) + ID_SIZE + 12);
+    }
+
+    /** Writes a graph covering every stored commit, parents before children,
+     *  and its lookup table. Needed for repositories made before the graph
+     *  existed or with an older version of it, and for any graph that has
+     *  lost track of a commit. */
+    private static void rebuild() {
+        HashMap<String, Commit> commits = new HashMap<>();
+        for (String id : Commit.allIDs()) {
+            commits.put(id, Commit.fromFile(id));
+        }
+        HashMap<String, Integer> positions = new HashMap<>();
+        List<Commit> order = new ArrayList<>();
+        for (Commit start : commits.values()) {
+            // depth first, so a commit is placed once both its parents are
+            ArrayDeque<Commit> stack = new ArrayDeque<>();
+            stack.push(start);
+            while (!stack.isEmpty()) {
+                Commit c = stack.peek();
+                if (positions.containsKey(c.getID())) {
+                    stack.pop();
+                    continue;
+                }
+                boolean ready = true;
+                for (String parent : new String[] {c.getParent(), c.getMergeParent()}) {
+                    if (parent != null && commits.containsKey(parent)
+                            && !positions.containsKey(parent)) {
+                        stack.push(commits.get(parent));
+                        ready = false;
+                    }
+                }
+                if (ready) {
+                    stack.pop();
+                    positions.put(c.getID(), order.size());
+                    order.add(c);
+                }
+            }
+        }
+        Repository.COMMIT_LOOKUP.delete();
+        HashMap<String, Integer> generations = new HashMap<>();
+        try (DataOutputStream ends = new DataOutputStream(new BufferedOutputStream(
+                new FileOutputStream(Repository.PATH_FILTERS)));
+             BufferedOutputStream data = new BufferedOutputStream(
+                new FileOutputStream(Repository.PATH_FILTER_DATA))) {
+            long end = 0;
+            for (Commit c : order) {
+                byte[] filter = PathFilter.of(changedPaths(c, commits));
+                data.write(filter);
+                end += filter.length;
+                ends.writeLong(end);
+            }
+        } catch (IOException excp) {
+            throw new IllegalArgumentException(excp.getMessage());
+        }
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(
+                new FileOutputStream(Repository.COMMIT_GRAPH)))) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            for (Commit c : order) {
+                int parent = positions.getOrDefault(c.getParent(), NONE);
+                int merged = positions.getOrDefault(c.getMergeParent(), NONE);
+                int generation = 1 + Math.max(generations.getOrDefault(c.getParent(), 0),
+                        generations.getOrDefault(c.getMergeParent(), 0));
+                generations.put(c.getID(), generation);
+                writeRecord(out, c.getID(), parent, merged, generation, timestamp(c.getDate()));
+            }
+        } catch (IOException excp) {
+            throw new IllegalArgumentException(excp.getMessage());
+        }
+        new CommitGraph().writeLookup();
+    }
+
+    private static void writeHeader() {
+        try (DataOutputStream out = new DataOutputStream(
+                new FileOutputStream(Repository.COMMIT_GRAPH))) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+        } catch (IOException excp) {
+            throw new IllegalArgumentException(excp.getMessage());
+        }
+    }
+
+    private static void writeRecord(DataOutputStream out, String id, int parent, int merged,
+                                    int generation, long time) throws IOException {
+        out.write(toBytes(id));
+        out.writeInt(parent);
+        out.writeInt(merged);
+        out.writeInt(generation);
+        out.writeLong(time);
+    }
+
+    // seconds since the epoch for a date in the format Commit stores
+    private static long timestamp(String date) {
+        try {
+            return new SimpleDateFormat("EEE MMM d HH:mm:ss yyyy Z").parse(date).getTime() / 1000;
+        } catch (ParseException excp) {
+            return 0;
+        }
+    }
+
+    private static byte[] toBytes(String id) {
+        byte[] result = new byte[ID_SIZE];
+        for (int k = 0; k < ID_SIZE; k++) {
+            result[k] = (byte) Integer.parseInt(id.substring(2 * k, 2 * k + 2), 16);
+        }
+        return result;
+    }
+}
@@ -0,0 +1,193 @@
+package gitlet;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInput;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.charset.StandardCharsets;
+import java.util.function.Consumer;
+
+/** Append-only log of commit metadata (ID, parents, date, message), written
+ *  by every commit so global-log and find never have to open commit objects.
+ *  A record's byte offset in the log is how MessageIndex refers to it. The
+ *  log starts with its format VERSION, and a log in any other format is
+ *  written again from the stored commits.
+ *
+ *  @author Jenny Nguyen
+ */
+public class CommitIndex {
+    private static final int VERSION = 2;
+    private static final int HEADER = 4;
+
+    /** One commit's metadata as stored in the log. */
+    static class Entry {
+        private final long offset;
+        private final String id;
+        private final String parent;
+        private final String mergeParent;
+        private final String date;
+        private final String message;
+
+        Entry(long off, String i, String p, String mp, String d, String m) {
+            offset = off;
+            id = i;
+            parent = p;
+            mergeParent = mp;
+            date = d;
+            message = m;
+        }
+
+        long getOffset() {
+            return offset;
+        }
+
+        String getID() {
+            return id;
+        }
+
+        String getParent() {
+            return parent;
+        }
+
+        String getMergeParent() {
+            return mergeParent;
+        }
+
+        String getDate() {
+            return date;
+        }
+
+        String getMessage() {
+            return message;
+        }
+    }
+
+    /** Adds commit C, which must already be saved, to the end of the log and
+     *  to the message index. */
+    static void append(Commit c) {
+        if (!isCurrent()) {
+            ensure(); // picks up C along with every other stored commit
+        } else {
+            write(c, true);
+        }
+    }
+
+    /** Hands every entry in the log to ACTION, oldest first, reading the
+     *  log as a stream. */
+    static void scan(Consumer<Entry> action) {
+        ensure();
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(
+                new FileInputStream(Repository.COMMIT_LOG)))) {
+            in.skipBytes(HEADER);
+            long offset = HEADER;
+            while (true) {
+                Entry e;
+                try {
+                    e = readEntry(in, offset);
+                } catch (EOFException excp) {
+                    break;
+                }
+                offset += size(e);
+                action.accept(e);
+            }
+        } catch (IOException excp) {
+            throw new IllegalArgumentException(excp.getMessage());
+        }
+    }
+
+    /** The entry that starts at byte OFFSET of the log. */
+    static Entry readAt(long offset) {
+        try (RandomAccessFile f = new RandomAccessFile(Repository.COMMIT_LOG, "r")) {
+            f.seek(offset);
+            return readEntry(f, offset);
+        } catch (IOException excp) {
+            throw new IllegalArgumentException(excp.getMessage());
+        }
+    }
+
+    /** Writes the log and message index from the stored commits if this
+     *  repository was made before they existed or by an older version. */
+    static void ensure() {
+        if (isCurrent()) {
+            return;
+        }
+        MessageIndex.clear();
+        Utils.writeContents(Repository.COMMIT_LOG, new byte[] {0, 0, 0, VERSION});
+        for (String id : Commit.allIDs()) {
+            write(Commit.fromFile(id), false);
+        }
+    }
+
+    private static boolean isCurrent() {
+        if (!Repository.COMMIT_LOG.exists()) {
+            return false;
+        }
+        try (DataInputStream in = new DataInputStream(
+                new FileInputStream(Repository.COMMIT_LOG))) {
+            return in.readInt() == VERSION;
+        } catch (EOFException excp) {
+            return false;
+        } catch (IOException excp) {
+            throw new IllegalArgumentException(excp.getMessage());
+        }
+    }
+
+    private static void write(Commit c, boolean sync) {
+        long offset = Repository.COMMIT_LOG.length();
+        try (FileOutputStream file = new FileOutputStream(Repository.COMMIT_LOG, true);
+             DataOutputStream out = new DataOutputStream(new BufferedOutputStream(file))) {
+            writeString(out, c.getID());
+            writeString(out, c.getParent() == null ? "" : c.getParent());
+            writeString(out, c.getMergeParent() == null ? "" : c.getMergeParent());
+            writeString(out, c.getDate());
+            writeString(out, c.getMessage());
+            out.flush();
+            if (sync) {
+                file.getFD().sync();
+            }
+        } catch (IOException excp) {
+            throw new IllegalArgumentException(excp.getMessage());
+        }
+        MessageIndex.add(c.getMessage(), offset);
+    }
+
+    private static Entry readEntry(DataInput in, long offset) throws IOException {
+        String id = readString(in);
+        String parent = readString(in);
+        String mergeParent = readString(in);
+        String date = readString(in);
+        String message = readString(in);
+        return new Entry(offset, id, parent.isEmpty() ? null : parent,
+                mergeParent.isEmpty() ? null : mergeParent, date, message);
+    }
+
+    // number of bytes entry E takes up in the log
+    private static long size(Entry e) {
+        return 20 + utf8Length(e.id) + utf8Length(e.parent == null ? "" : e.parent)
+                + utf8Length(e.mergeParent == null ? "" : e.mergeParent)
+                + utf8Length(e.date) + utf8Length(e.message);
+    }
+
+    private static int utf8Length(String s) {
+        return s.getBytes(StandardCharsets.UTF_8).length;
+    }
+
+    // length-prefixed so messages are not limited to writeUTF's 64K
+    private static void writeString(DataOutputStream out, String s) throws IOException {
+        byte[] bytes = s.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static String readString(DataInput in) throws IOException {
+        byte[] bytes = new byte[in.readInt()];
+        in.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
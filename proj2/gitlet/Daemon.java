@@ -0,0 +1,106 @@
+package gitlet;
+
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.net.StandardProtocolFamily;
+import java.net.UnixDomainSocketAddress;
+import java.nio.channels.Channels;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+
+/** A long-running gitlet process that keeps the repository warm (the JIT,
+ *  the memory-mapped pack index and commit-graph, and commits already read)
+ *  and runs commands sent to it over a UNIX-domain socket in .gitlet.
+ *
+ *  Commands are run one at a time, so they see the repository exactly as
+ *  they would from separate processes. The staging area, branches and
+ *  stat cache are small and are still read again for every command, since
+ *  another process may have changed them. A request is the argument count
+ *  followed by each argument as a length-prefixed UTF-8 string; the reply is
+ *  everything the command printed, and the connection is closed when it is
+ *  done. See Client for the sending side.
+ *
+ *  @author Jenny Nguyen
+ */
+public class Daemon {
+    public static final File SOCKET = Utils.join(Repository.GITLET_DIR, "daemon.sock");
+
+    /** Serves commands against BLOOP until a client sends "daemon --stop". */
+    static void serve(Repository bloop) {
+        if (SOCKET.exists() && Client.isServing(SOCKET)) {
+            throw new GitletException("A gitlet daemon is already running.");
+        }
+        SOCKET.delete(); // left behind by a daemon that did not shut down
+        PrintStream console = System.out;
+        try (ServerSocketChannel server = ServerSocketChannel.open(StandardProtocolFamily.UNIX)) {
+            server.bind(UnixDomainSocketAddress.of(SOCKET.toPath()));
+            SOCKET.deleteOnExit();
+            boolean running = true;
+            while (running) {
+                try (SocketChannel client = server.accept()) {
+                    running = handle(client, bloop);
+                } catch (IOException excp) {
+                    console.println("daemon: " + excp.getMessage());
+                } finally {
+                    System.setOut(console);
+                }
+            }
+        } catch (IOException excp) {
+            throw new GitletException("Could not start the gitlet daemon: " + excp.getMessage());
+        } finally {
+            SOCKET.delete();
+        }
+    }
+
+    /** Runs the one command sent by CLIENT, with its output going back over
+     *  the socket. Returns false once asked to stop. */
+    private static boolean handle(SocketChannel client, Repository bloop) throws IOException {
+        DataInputStream in = new DataInputStream(Channels.newInputStream(client));
+        int count;
+        try {
+            count = in.readInt();
+        } catch (EOFException excp) {
+            return true; // closed without a command, as Client.isServing does
+        }
+        String[] args = new String[count];
+        for (int i = 0; i < args.length; i++) {
+            byte[] arg = new byte[in.readInt()];
+            in.readFully(arg);
+            args[i] = new String(arg, StandardCharsets.UTF_8);
+        }
+
+        PrintStream out = new PrintStream(new BufferedOutputStream(
+                Channels.newOutputStream(client)), false, StandardCharsets.UTF_8);
+        System.setOut(out);
+        boolean running = true;
+        try {
+            if (args.length >= 1 && args[0].equals("daemon")) {
+                if (args.length == 2 && args[1].equals("--stop")) {
+                    running = false;
+                } else if (args.length == 2 && args[1].equals("--stats")) {
+                    for (String line : ObjectCache.report()) {
+                        System.out.println(line);
+                    }
+                } else {
+                    Utils.message("A gitlet daemon is already running.");
+                }
+            } else {
+                // another process may have written to the repository meanwhile
+                PackFile.refresh();
+                CommitGraph.refresh();
+                Main.run(args, bloop);
+            }
+        } catch (GitletException excp) {
+            Utils.message(excp.getMessage());
+        } catch (RuntimeException excp) {
+            Utils.message("daemon: " + excp);
+        }
+        out.flush();
+        return running;
+    }
+}
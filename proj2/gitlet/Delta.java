@@ -0,0 +1,143 @@
+package gitlet;
+
+import java.io.ByteArrayOutputStream;
+import java.util.HashMap;
+
+/** Binary deltas between two versions of a file, used by the pack to store
+ *  a blob as the changes against an earlier version of the same path.
+ *
+ *  A delta is the base length and result length as varints, followed by
+ *  instructions: COPY (offset, length) copies a run out of the base and
+ *  INSERT (length, bytes) adds bytes that the base does not have.
+ *
+ *  @author Jenny Nguyen
+ */
+class Delta {
+    private static final int COPY = 0;
+    private static final int INSERT = 1;
+
+    /** Matches shorter than this are cheaper to insert than to copy. */
+    private static final int BLOCK = 16;
+    private static final int PRIME = 31;
+
+    /** Returns a delta that turns BASE into TARGET. */
+    static byte[] create(byte[] base, byte[] target) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(target.length / 4 + 16);
+        writeVarint(out, base.length);
+        writeVarint(out, target.length);
+
+        // hash of every non-overlapping block of the base -> its offset
+        HashMap<Integer, Integer> blocks = new HashMap<>();
+        for (int i = 0; i + BLOCK <= base.length; i += BLOCK) {
+            blocks.putIfAbsent(hash(base, i), i);
+        }
+        int power = 1;
+        for (int k = 1; k < BLOCK; k++) {
+            power *= PRIME;
+        }
+
+        int literalStart = 0;
+        int i = 0;
+        int h = target.length >= BLOCK ? hash(target, 0) : 0;
+        while (i + BLOCK <= target.length) {
+            Integer candidate = blocks.get(h);
+            int length = candidate == null ? 0 : matchLength(base, candidate, target, i);
+            if (length >= BLOCK) {
+                int start = candidate;
+                // grow the match backwards into bytes that would otherwise be inserted
+                while (start > 0 && i > literalStart && base[start - 1] == target[i - 1]) {
+                    start--;
+                    i--;
+                    length++;
+                }
+                writeInsert(out, target, literalStart, i);
+                out.write(COPY);
+                writeVarint(out, start);
+                writeVarint(out, length);
+                i += length;
+                literalStart = i;
+                if (i + BLOCK <= target.length) {
+                    h = hash(target, i);
+                }
+            } else {
+                if (i + BLOCK < target.length) {
+                    h = (h - target[i] * power) * PRIME + target[i + BLOCK];
+                }
+                i++;
+            }
+        }
+        writeInsert(out, target, literalStart, target.length);
+        return out.toByteArray();
+    }
+
+    /** Rebuilds the target from BASE and a DELTA produced by create. */
+    static byte[] apply(byte[] base, byte[] delta) {
+        int[] pos = {0};
+        int baseLength = readVarint(delta, pos);
+        if (baseLength != base.length) {
+            throw new IllegalArgumentException("delta does not match its base");
+        }
+        byte[] result = new byte[readVarint(delta, pos)];
+        int n = 0;
+        while (pos[0] < delta.length) {
+            int op = delta[pos[0]++];
+            if (op == COPY) {
+                int offset = readVarint(delta, pos);
+                int length = readVarint(delta, pos);
+                System.arraycopy(base, offset, result, n, length);
+                n += length;
+            } else {
+                int length = readVarint(delta, pos);
+                System.arraycopy(delta, pos[0], result, n, length);
+                pos[0] += length;
+                n += length;
+            }
+        }
+        return result;
+    }
+
+    private static int hash(byte[] data, int start) {
+        int h = 0;
+        for (int k = start; k < start + BLOCK; k++) {
+            h = h * PRIME + data[k];
+        }
+        return h;
+    }
+
+    private static int matchLength(byte[] base, int b, byte[] target, int t) {
+        int length = 0;
+        while (b + length < base.length && t + length < target.length
+                && base[b + length] == target[t + length]) {
+            length++;
+        }
+        return length;
+    }
+
+    private static void writeInsert(ByteArrayOutputStream out, byte[] target, int from, int to) {
+        if (to > from) {
+            out.write(INSERT);
+            writeVarint(out, to - from);
+            out.write(target, from, to - from);
+        }
+    }
+
+    private static void writeVarint(ByteArrayOutputStream out, int value) {
+        while ((value & ~0x7f) != 0) {
+            out.write((value & 0x7f) | 0x80);
+            value >>>= 7;
+        }
+        out.write(value);
+    }
+
+    private static int readVarint(byte[] data, int[] pos) {
+        int value = 0;
+        int shift = 0;
+        int b;
+        do {
+            b = data[pos[0]++];
+            value |= (b & 0x7f) << shift;
+            shift += 7;
+        } while ((b & 0x80) != 0);
+        return value;
+    }
+}
@@ -0,0 +1,262 @@
+package gitlet;
+
+import java.io.PrintWriter;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+
+/** Line diffs between versions of a text file. The longest common
+ *  subsequence of two files' lines is found with Myers' O(ND) algorithm in
+ *  its linear-space form: the middle snake of the edit graph is found by
+ *  searching from both ends at once, and the two halves on either side of it
+ *  are solved the same way. Lines are compared as ints, each distinct line
+ *  numbered once, so the search never compares strings.
+ *
+ *  write prints the differences between two versions of a file in unified
+ *  format, with CONTEXT unchanged lines around each change.
+ *
+ *  @author Jenny Nguyen
+ */
+class Diff {
+    /** Bytes looked at for a NUL when deciding whether a file is binary. */
+    private static final int BINARY_PROBE = 8000;
+    private static final int CONTEXT = 3;
+
+    /** The lines of TEXT, each keeping its '\n'; the last one has none if
+     *  TEXT does not end with a newline. */
+    static String[] lines(String text) {
+        List<String> result = new ArrayList<>();
+        int start = 0;
+        int nl;
+        while ((nl = text.indexOf('\n', start)) >= 0) {
+            result.add(text.substring(start, nl + 1));
+            start = nl + 1;
+        }
+        if (start < text.length()) {
+            result.add(text.substring(start));
+        }
+        return result.toArray(new String[0]);
+    }
+
+    /** Numbers the lines of each of TEXTS, the same line getting the same
+     *  number wherever it appears. */
+    static int[][] number(String[]... texts) {
+        HashMap<String, Integer> numbers = new HashMap<>();
+        int[][] result = new int[texts.length][];
+        for (int t = 0; t < texts.length; t++) {
+            result[t] = new int[texts[t].length];
+            for (int i = 0; i < texts[t].length; i++) {
+                Integer n = numbers.putIfAbsent(texts[t][i], numbers.size());
+                result[t][i] = n == null ? numbers.size() - 1 : n;
+            }
+        }
+        return result;
+    }
+
+    /** Prints to OUT how file PATH changed from BEFORE to AFTER, either of
+     *  which is null where the file does not exist, as a unified diff. */
+    static void write(PrintWriter out, String path, byte[] before, byte[] after) {
+        out.println("diff --git a/" + path + " b/" + path);
+        if (before == null) {
+            out.println("new file");
+        } else if (after == null) {
+            out.println("deleted file");
+        }
+        write(out, before == null ? "/dev/null" : "a/" + path,
+                after == null ? "/dev/null" : "b/" + path, before, after);
+    }
+
+    /** Prints to OUT that file P.getTo() was renamed or copied from
+     *  P.getFrom(), with how its contents changed from BEFORE to AFTER. */
+    static void write(PrintWriter out, Renames.Pair p, byte[] before, byte[] after) {
+        String kind = p.isCopy() ? "copy" : "rename";
+        out.println("diff --git a/" + p.getFrom() + " b/" + p.getTo());
+        out.println("similarity index " + p.getScore() + "%");
+        out.println(kind + " from " + p.getFrom());
+        out.println(kind + " to " + p.getTo());
+        if (!Arrays.equals(before, after)) {
+            write(out, "a/" + p.getFrom(), "b/" + p.getTo(), before, after);
+        }
+    }
+
+    // the body of a diff, from the --- and +++ lines on
+    private static void write(PrintWriter out, String from, String to, byte[] before,
+                              byte[] after) {
+        byte[] a = before == null ? new byte[0] : before;
+        byte[] b = after == null ? new byte[0] : after;
+        if (isBinary(a) || isBinary(b)) {
+            out.println("Binary files " + from + " and " + to + " differ");
+            return;
+        }
+        String[] x = lines(new String(a, StandardCharsets.UTF_8));
+        String[] y = lines(new String(b, StandardCharsets.UTF_8));
+        int[][] nums = number(x, y);
+        int[] kept = match(nums[0], nums[1]);
+        out.println("--- " + from);
+        out.println("+++ " + to);
+
+        // the edit as one op per line: ' ' kept, '-' deleted from X, '+' inserted from Y,
+        // with the number of lines of X and Y that come before each op
+        int size = x.length + y.length;
+        char[] ops = new char[size];
+        int[] xAt = new int[size + 1];
+        int[] yAt = new int[size + 1];
+        int n = 0;
+        int i = 0;
+        int j = 0;
+        while (i < x.length || j < y.length) {
+            xAt[n] = i;
+            yAt[n] = j;
+            if (i < x.length && kept[i] == j) {
+                ops[n++] = ' ';
+                i++;
+                j++;
+            } else if (i < x.length && kept[i] < 0) {
+                ops[n++] = '-';
+                i++;
+            } else {
+                ops[n++] = '+';
+                j++;
+            }
+        }
+        xAt[n] = i;
+        yAt[n] = j;
+
+        // a hunk joins changes at most two contexts apart, with context around them
+        int k = 0;
+        while (k < n) {
+            if (ops[k] == ' ') {
+                k++;
+                continue;
+            }
+            int last = k;
+            for (int e = k + 1; e < n && e - last - 1 <= 2 * CONTEXT; e++) {
+                if (ops[e] != ' ') {
+                    last = e;
+                }
+            }
+            int start = Math.max(0, k - CONTEXT);
+            int end = Math.min(n, last + 1 + CONTEXT);
+            out.println("@@ -" + range(xAt[start], xAt[end]) + " +"
+                    + range(yAt[start], yAt[end]) + " @@");
+            for (int op = start; op < end; op++) {
+                String line = ops[op] == '+' ? y[yAt[op]] : x[xAt[op]];
+                out.print(ops[op]);
+                out.print(line);
+                if (!line.endsWith("\n")) {
+                    out.println();
+                    out.println("\\ No newline at end of file");
+                }
+            }
+            k = end;
+        }
+    }
+
+    // a hunk's line range FROM .. TO (0-based, exclusive) as a unified diff writes it
+    private static String range(int from, int to) {
+        int count = to - from;
+        if (count == 1) {
+            return String.valueOf(from + 1);
+        }
+        return (count == 0 ? from : from + 1) + "," + count;
+    }
+
+    // true if CONTENTS has a NUL near the start, which text files never do
+    static boolean isBinary(byte[] contents) {
+        int n = Math.min(contents.length, BINARY_PROBE);
+        for (int i = 0; i < n; i++) {
+            if (contents[i] == 0) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /** For each line of A, the index of the line of B it is kept as in a
+     *  shortest edit from A to B, or -1 if it is deleted. Matched indices
+     *  always increase. */
+    static int[] match(int[] a, int[] b) {
+        int[] result = new int[a.length];
+        Arrays.fill(result, -1);
+        int size = 2 * ((a.length + b.length + 1) / 2) + 4;
+        compare(a, 0, a.length, b, 0, b.length, result, new int[size], new int[size]);
+        return result;
+    }
+
+    // matches a[aLo, aHi) against b[bLo, bHi); FORWARD and BACKWARD are scratch for middleSnake
+    private static void compare(int[] a, int aLo, int aHi, int[] b, int bLo, int bHi,
+                                int[] result, int[] forward, int[] backward) {
+        while (aLo < aHi && bLo < bHi && a[aLo] == b[bLo]) {
+            result[aLo++] = bLo++;
+        }
+        while (aLo < aHi && bLo < bHi && a[aHi - 1] == b[bHi - 1]) {
+            result[--aHi] = --bHi;
+        }
+        if (aLo == aHi || bLo == bHi) {
+            return; // only insertions or only deletions are left
+        }
+        int[] snake = middleSnake(a, aLo, aHi, b, bLo, bHi, forward, backward);
+        compare(a, aLo, snake[0], b, bLo, snake[1], result, forward, backward);
+        for (int x = snake[0], y = snake[1]; x < snake[2]; x++, y++) {
+            result[x] = y;
+        }
+        compare(a, snake[2], aHi, b, snake[3], bHi, result, forward, backward);
+    }
+
+    /** The middle snake of a shortest edit from a[aLo, aHi) to b[bLo, bHi),
+     *  as {x, y, u, v}: the diagonal run of matching lines from (x, y) to
+     *  (u, v). The ends of the two ranges must differ, so the snake leaves
+     *  at least one edit on each side of it.
+     *
+     *  FORWARD[k] is how far along A the furthest path from the start has
+     *  got on diagonal k (x - y = k); BACKWARD[k] is the same for paths from
+     *  the end, measured backwards. Diagonals are offset by the middle of the
+     *  arrays. */
+    private static int[] middleSnake(int[] a, int aLo, int aHi, int[] b, int bLo, int bHi,
+                                     int[] forward, int[] backward) {
+        int n = aHi - aLo;
+        int m = bHi - bLo;
+        int delta = n - m;
+        boolean odd = (delta & 1) != 0;
+        int mid = forward.length / 2;
+        forward[mid + 1] = 0;
+        backward[mid + 1] = 0;
+        for (int d = 0; d <= (n + m + 1) / 2; d++) {
+            for (int k = -d; k <= d; k += 2) {
+                int x = k == -d || (k != d && forward[mid + k - 1] < forward[mid + k + 1])
+                        ? forward[mid + k + 1] : forward[mid + k - 1] + 1;
+                int y = x - k;
+                int x0 = x;
+                int y0 = y;
+                while (x < n && y < m && a[aLo + x] == b[bLo + y]) {
+                    x++;
+                    y++;
+                }
+                forward[mid + k] = x;
+                if (odd && k >= delta - (d - 1) && k <= delta + (d - 1)
+                        && x + backward[mid + delta - k] >= n) {
+                    return new int[] {aLo + x0, bLo + y0, aLo + x, bLo + y};
+                }
+            }
+            for (int k = -d; k <= d; k += 2) {
+                int x = k == -d || (k != d && backward[mid + k - 1] < backward[mid + k + 1])
+                        ? backward[mid + k + 1] : backward[mid + k - 1] + 1;
+                int y = x - k;
+                int x0 = x;
+                int y0 = y;
+                while (x < n && y < m && a[aHi - 1 - x] == b[bHi - 1 - y]) {
+                    x++;
+                    y++;
+                }
+                backward[mid + k] = x;
+                if (!odd && k >= delta - d && k <= delta + d
+                        && x + forward[mid + delta - k] >= n) {
+                    return new int[] {aHi - x, bHi - y, aHi - x0, bHi - y0};
+                }
+            }
+        }
+        throw new IllegalStateException("no middle snake"); // a path always exists
+    }
+}
@@ -0,0 +1,107 @@
+package gitlet;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/** Three-way merge of a text file line by line, as diff3 does it. Each
+ *  side is diffed against the base, and the base lines that both sides kept
+ *  in place split the files into stable runs and the unstable stretches in
+ *  between. In an unstable stretch that only one side changed, or that both
+ *  changed the same way, the change is taken; only a stretch the two sides
+ *  changed differently is a conflict, and only it is marked.
+ *
+ *  Files are handled as ISO-8859-1 so that any bytes come back out exactly
+ *  as they went in.
+ *
+ *  @author Jenny Nguyen
+ */
+class LineMerge {
+    private final byte[] contents;
+    private final int conflicts;
+
+    private LineMerge(byte[] c, int n) {
+        contents = c;
+        conflicts = n;
+    }
+
+    /** The merged contents, with conflict markers if there were conflicts. */
+    byte[] getContents() {
+        return contents;
+    }
+
+    /** How many regions conflicted. */
+    int getConflicts() {
+        return conflicts;
+    }
+
+    /** Merges CURR and OTHER, the two versions of a file, given BASE, the
+     *  version they both started from. */
+    static LineMerge merge(byte[] base, byte[] curr, byte[] other) {
+        String[] o = Diff.lines(new String(base, StandardCharsets.ISO_8859_1));
+        String[] a = Diff.lines(new String(curr, StandardCharsets.ISO_8859_1));
+        String[] b = Diff.lines(new String(other, StandardCharsets.ISO_8859_1));
+        int[][] nums = Diff.number(o, a, b);
+        int[] inA = Diff.match(nums[0], nums[1]);
+        int[] inB = Diff.match(nums[0], nums[2]);
+
+        StringBuilder out = new StringBuilder();
+        int conflicts = 0;
+        int lo = 0;
+        int la = 0;
+        int lb = 0;
+        while (lo < o.length || la < a.length || lb < b.length) {
+            // a stable run: base lines both sides kept, with nothing inserted before them
+            int k = 0;
+            while (lo + k < o.length && inA[lo + k] == la + k && inB[lo + k] == lb + k) {
+                out.append(o[lo + k]);
+                k++;
+            }
+            if (k > 0) {
+                lo += k;
+                la += k;
+                lb += k;
+                continue;
+            }
+            // otherwise an unstable stretch, up to the next base line both sides kept
+            int eo = lo;
+            while (eo < o.length && (inA[eo] < 0 || inB[eo] < 0)) {
+                eo++;
+            }
+            int ea = eo < o.length ? inA[eo] : a.length;
+            int eb = eo < o.length ? inB[eo] : b.length;
+            String[] baseRun = Arrays.copyOfRange(o, lo, eo);
+            String[] aRun = Arrays.copyOfRange(a, la, ea);
+            String[] bRun = Arrays.copyOfRange(b, lb, eb);
+            if (Arrays.equals(aRun, baseRun) || Arrays.equals(aRun, bRun)) {
+                append(out, bRun);
+            } else if (Arrays.equals(bRun, baseRun)) {
+                append(out, aRun);
+            } else {
+                conflicts++;
+                out.append("<<<<<<< HEAD\n");
+                appendLines(out, aRun);
+                out.append("=======\n");
+                appendLines(out, bRun);
+                out.append(">>>>>>>\n");
+            }
+            lo = eo;
+            la = ea;
+            lb = eb;
+        }
+        return new LineMerge(out.toString().getBytes(StandardCharsets.ISO_8859_1), conflicts);
+    }
+
+    private static void append(StringBuilder out, String[] lines) {
+        for (String line : lines) {
+            out.append(line);
+        }
+    }
+
+    // appends LINES inside conflict markers, which must start on a line of their own
+    private static void appendLines(StringBuilder out, String[] lines) {
+        append(out, lines);
+        if (lines.length > 0 && !lines[lines.length - 1].endsWith("\n")) {
+            out.append('\n');
+        }
+    }
+}
@@ -11,21 +11,33 @@ public class Main {
 
 
     public static void main(String[] args) {
-        if (args.length < 1) {
-            Utils.message("Please enter a command.");
+        try {
+            run(args, new gitlet.Repository());
+        } catch (GitletException excp) {
+            Utils.message(excp.getMessage());
             System.exit(0);
         }
+    }
+
+    /** Runs the command in ARGS against BLOOP. Errors are thrown as a
+     *  GitletException carrying the message to print, so a long-running
+     *  daemon can report them without exiting. */
+    static void run(String[] args, gitlet.Repository bloop) {
+        if (args.length < 1) {
+            throw new GitletException("Please enter a command.");
+        }
         String firstArg = args[0];
-        gitlet.Repository bloop = new gitlet.Repository();
         switch (firstArg) {
             case "init":
                 validateNumArgs(args, 1);
                 bloop.init();
                 break;
             case "add":
-                validateNumArgs(args, 2);
+                if (args.length < 2) {
+                    validateNumArgs(args, 2);
+                }
                 validateHasDirectory();
-                bloop.add(args[1]);
+                bloop.add(java.util.Arrays.copyOfRange(args, 1, args.length));
                 break;
             case "commit":
                 validateNumArgs(args, 2);
@@ -38,9 +50,12 @@ public class Main {
                 bloop.rm(args[1]);
                 break;
             case "log":
-                validateNumArgs(args, 1);
                 validateHasDirectory();
-                bloop.log();
+                bloop.log(java.util.Arrays.copyOfRange(args, 1, args.length));
+                break;
+            case "diff":
+                validateHasDirectory();
+                bloop.diff(java.util.Arrays.copyOfRange(args, 1, args.length));
                 break;
             case "global-log":
                 validateNumArgs(args, 1);
@@ -48,14 +63,23 @@ public class Main {
                 bloop.globalLog();
                 break;
             case "find":
-                validateNumArgs(args, 2);
                 validateHasDirectory();
-                bloop.find(args[1]);
+                if (args.length == 2) {
+                    bloop.find(args[1]);
+                } else if (args.length == 3
+                        && (args[1].equals("--word") || args[1].equals("--grep"))) {
+                    bloop.find(args[2], args[1]);
+                } else {
+                    validateNumArgs(args, 0);
+                }
                 break;
             case "status":
-                validateNumArgs(args, 1);
+                boolean renames = args.length == 2 && args[1].equals("--renames");
+                if (!renames) {
+                    validateNumArgs(args, 1);
+                }
                 validateHasDirectory();
-                bloop.status();
+                bloop.status(renames);
                 break;
             case "checkout":
                 validateHasDirectory();
@@ -89,9 +113,26 @@ public class Main {
                 validateHasDirectory();
                 bloop.merge(args[1]);
                 break;
+            case "pack":
+                validateNumArgs(args, 1);
+                validateHasDirectory();
+                bloop.pack();
+                break;
+            case "migrate":
+                validateNumArgs(args, 1);
+                validateInitialized();
+                bloop.migrate();
+                break;
+            case "daemon":
+                validateHasDirectory();
+                if (args.length == 2 && (args[1].equals("--stop") || args[1].equals("--stats"))) {
+                    throw new GitletException("No gitlet daemon is running.");
+                }
+                validateNumArgs(args, 1);
+                Daemon.serve(bloop);
+                break;
             default:
-                Utils.message("No command with that name exists.");
-                System.exit(0);
+                throw new GitletException("No command with that name exists.");
 
         }
 
@@ -99,15 +140,21 @@ public class Main {
 
     private static void validateNumArgs(String[] args, int num) {
         if (args.length != num) {
-            gitlet.Utils.message("Incorrect operands.");
-            System.exit(0);
+            throw new GitletException("Incorrect operands.");
         }
     }
 
     private static void validateHasDirectory() {
+        validateInitialized();
+        if (gitlet.Repository.isOutdated()) {
+            throw new GitletException("This repository was made by an older gitlet; "
+                    + "run migrate first.");
+        }
+    }
+
+    private static void validateInitialized() {
         if (!gitlet.Repository.GITLET_DIR.exists()) {
-            gitlet.Utils.message("Not in an initialized Gitlet directory.");
-            System.exit(0);
+            throw new GitletException("Not in an initialized Gitlet directory.");
         }
     }
 
@@ -0,0 +1,214 @@
+package gitlet;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+/** Inverted index from the words of commit messages to the CommitIndex
+ *  entries that contain them. Postings are appended to one of 256 bucket
+ *  files picked by the hash of the word, so looking a word up reads a single
+ *  small bucket. TOKENS lists every distinct word once, which is what
+ *  substring searches scan instead of the commits themselves. Entries with
+ *  a word too long for the buckets are listed in LONG, and every search
+ *  treats them as candidates.
+ *
+ *  @author Jenny Nguyen
+ */
+public class MessageIndex {
+    private static final File TOKENS = Utils.join(Repository.MESSAGE_INDEX, "tokens");
+    private static final File LONG = Utils.join(Repository.MESSAGE_INDEX, "long");
+
+    /** Longer words go to LONG instead of the buckets; searches verify every
+     *  match against the message anyway. */
+    private static final int MAX_TOKEN = 255;
+
+    /** The words in TOKENS, read once per process by the first add. A word
+     *  another process adds meanwhile is at worst listed twice. */
+    private static Set<String> known;
+
+    /** Words of MESSAGE: lower-cased runs of letters and digits. */
+    static List<String> tokenize(String message) {
+        LinkedHashSet<String> result = new LinkedHashSet<>();
+        for (String t : message.toLowerCase(Locale.ROOT).split("[^\\p{L}\\p{N}]+")) {
+            if (!t.isEmpty()) {
+                result.add(t);
+            }
+        }
+        return new ArrayList<>(result);
+    }
+
+    /** Records that the log entry at OFFSET has MESSAGE. */
+    static void add(String message, long offset) {
+        Repository.MESSAGE_INDEX.mkdir();
+        if (known == null) {
+            known = readTokens();
+        }
+        boolean hasLong = false;
+        List<String> added = new ArrayList<>();
+        for (String token : tokenize(message)) {
+            if (token.length() > MAX_TOKEN) {
+                hasLong = true;
+                continue;
+            }
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(
+                    new FileOutputStream(bucket(token), true)))) {
+                out.writeUTF(token);
+                out.writeLong(offset);
+            } catch (IOException excp) {
+                throw new IllegalArgumentException(excp.getMessage());
+            }
+            if (known.add(token)) {
+                added.add(token);
+            }
+        }
+        try {
+            if (!added.isEmpty()) {
+                try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(
+                        new FileOutputStream(TOKENS, true)))) {
+                    for (String token : added) {
+                        out.writeUTF(token);
+                    }
+                }
+            }
+            if (hasLong) {
+                try (DataOutputStream out = new DataOutputStream(
+                        new FileOutputStream(LONG, true))) {
+                    out.writeLong(offset);
+                }
+            }
+        } catch (IOException excp) {
+            throw new IllegalArgumentException(excp.getMessage());
+        }
+    }
+
+    /** Offsets of the entries whose messages contain every word in WORDS. */
+    static TreeSet<Long> withAllWords(List<String> words) {
+        CommitIndex.ensure();
+        TreeSet<Long> result = null;
+        for (String w : words) {
+            TreeSet<Long> postings = w.length() > MAX_TOKEN ? longEntries() : postings(w);
+            if (result == null) {
+                result = postings;
+            } else {
+                result.retainAll(postings);
+            }
+            if (result.isEmpty()) {
+                break;
+            }
+        }
+        return result == null ? new TreeSet<>() : result;
+    }
+
+    /** Offsets of the entries that have some word containing PART. */
+    static TreeSet<Long> withWordContaining(String part) {
+        CommitIndex.ensure();
+        TreeSet<Long> result = longEntries(); // any long word might contain PART
+        if (part.length() > MAX_TOKEN) {
+            return result;
+        }
+        for (String token : readTokens()) {
+            if (token.contains(part)) {
+                result.addAll(postings(token));
+            }
+        }
+        return result;
+    }
+
+    /** Deletes the whole index so it can be written again from scratch. */
+    static void clear() {
+        File[] files = Repository.MESSAGE_INDEX.listFiles();
+        if (files != null) {
+            for (File f : files) {
+                f.delete();
+            }
+        }
+        known = null;
+    }
+
+    private static TreeSet<Long> postings(String word) {
+        File bucket = bucket(word);
+        if (!bucket.exists()) {
+            return new TreeSet<>();
+        }
+        TreeSet<Long> result = readBucket(bucket).get(word);
+        return result == null ? new TreeSet<>() : result;
+    }
+
+    // offsets of the entries with a word longer than MAX_TOKEN
+    private static TreeSet<Long> longEntries() {
+        TreeSet<Long> result = new TreeSet<>();
+        if (!LONG.exists()) {
+            return result;
+        }
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(
+                new FileInputStream(LONG)))) {
+            while (true) {
+                try {
+                    result.add(in.readLong());
+                } catch (EOFException excp) {
+                    break;
+                }
+            }
+        } catch (IOException excp) {
+            throw new IllegalArgumentException(excp.getMessage());
+        }
+        return result;
+    }
+
+    private static Set<String> readTokens() {
+        Set<String> result = new HashSet<>();
+        if (!TOKENS.exists()) {
+            return result;
+        }
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(
+                new FileInputStream(TOKENS)))) {
+            while (true) {
+                try {
+                    result.add(in.readUTF());
+                } catch (EOFException excp) {
+                    break;
+                }
+            }
+        } catch (IOException excp) {
+            throw new IllegalArgumentException(excp.getMessage());
+        }
+        return result;
+    }
+
+    private static TreeMap<String, TreeSet<Long>> readBucket(File bucket) {
+        TreeMap<String, TreeSet<Long>> result = new TreeMap<>();
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(
+                new FileInputStream(bucket)))) {
+            while (true) {
+                String token;
+                try {
+                    token = in.readUTF();
+                } catch (EOFException excp) {
+                    break;
+                }
+                result.computeIfAbsent(token, k -> new TreeSet<>()).add(in.readLong());
+            }
+        } catch (IOException excp) {
+            throw new IllegalArgumentException(excp.getMessage());
+        }
+        return result;
+    }
+
+    private static File bucket(String word) {
+        return Utils.join(Repository.MESSAGE_INDEX, Utils.sha1(word).substring(0, 2));
+    }
+}
@@ -0,0 +1,117 @@
+package gitlet;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.ToLongFunction;
+
+/** Objects already read by this process, by ID, least recently used first.
+ *  Stored objects never change, so an entry stays valid for as long as the
+ *  process runs, which for the daemon is across many commands.
+ *
+ *  The cache is bounded by the total weight of what it holds, an estimate
+ *  of each object's size in bytes, rather than by a count: a commit with an
+ *  inline file list or a large blob costs far more memory than a commit
+ *  header. Anything heavier than a quarter of the limit is not kept at all.
+ *  Hits, misses and evictions are counted so the daemon can report them.
+ *
+ *  Safe to use from several threads.
+ *
+ *  @author Jenny Nguyen
+ */
+class ObjectCache<V> {
+    private static final List<ObjectCache<?>> ALL = new ArrayList<>();
+
+    private final String name;
+    private final long limit;
+    private final ToLongFunction<V> weigher;
+    private final LinkedHashMap<String, Slot<V>> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private long weight;
+    private long hits;
+    private long misses;
+    private long evictions;
+
+    private static class Slot<V> {
+        private final V value;
+        private final long weight; // as weighed when put, so removal takes off the same amount
+
+        Slot(V v, long w) {
+            value = v;
+            weight = w;
+        }
+    }
+
+    /** A cache called NAME in reports, holding up to LIMIT bytes as weighed
+     *  by WEIGHER. */
+    ObjectCache(String name, long limit, ToLongFunction<V> weigher) {
+        this.name = name;
+        this.limit = limit;
+        this.weigher = weigher;
+        synchronized (ALL) {
+            ALL.add(this);
+        }
+    }
+
+    /** The object cached under ID, or null, counting a hit or a miss. */
+    synchronized V get(String id) {
+        Slot<V> s = entries.get(id);
+        if (s == null) {
+            misses++;
+            return null;
+        }
+        hits++;
+        return s.value;
+    }
+
+    // true if ID is cached, without counting it or making it recently used
+    synchronized boolean contains(String id) {
+        return entries.containsKey(id);
+    }
+
+    /** Caches VALUE under ID, weighing it again if it is already there,
+     *  and evicts the least recently used objects until under the limit. */
+    synchronized void put(String id, V value) {
+        long w = weigher.applyAsLong(value);
+        Slot<V> old = entries.remove(id);
+        if (old != null) {
+            weight -= old.weight;
+        }
+        if (w > limit / 4) {
+            return;
+        }
+        entries.put(id, new Slot<>(value, w));
+        weight += w;
+        Iterator<Map.Entry<String, Slot<V>>> iter = entries.entrySet().iterator();
+        while (weight > limit && iter.hasNext()) {
+            weight -= iter.next().getValue().weight;
+            iter.remove();
+            evictions++;
+        }
+    }
+
+    // forgets every object, so the benchmarks can time loads from disk
+    synchronized void clear() {
+        entries.clear();
+        weight = 0;
+    }
+
+    synchronized String stats() {
+        long lookups = hits + misses;
+        return String.format("%s: %d entries, %d of %d KB, %d hits, %d misses (%.1f%% hit),"
+                + " %d evicted", name, entries.size(), weight >> 10, limit >> 10, hits, misses,
+                lookups == 0 ? 0.0 : 100.0 * hits / lookups, evictions);
+    }
+
+    /** One line of stats for each cache this process has made. */
+    static List<String> report() {
+        List<String> lines = new ArrayList<>();
+        synchronized (ALL) {
+            for (ObjectCache<?> c : ALL) {
+                lines.add(c.stats());
+            }
+        }
+        return lines;
+    }
+}
@@ -0,0 +1,206 @@
+package gitlet;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.Serializable;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+
+/** The compact binary format every gitlet object is stored in.
+ *
+ *  A file starts with the magic bytes "GL", the format VERSION and a byte
+ *  saying what kind of object follows. Numbers are unsigned varints, strings
+ *  are a varint length plus UTF-8, object IDs are their 20 raw bytes, and
+ *  file paths are split into a directory, interned so each one is written
+ *  only once per file, and a base name.
+ *
+ *  Version 2 stores a commit's snapshot as a Tree instead of inline. Files
+ *  written by version 1, or by Java serialization before this format
+ *  existed, are still read; the migrate command rewrites them.
+ *
+ *  @author Jenny Nguyen
+ */
+class ObjectCodec {
+    static final int VERSION = 2;
+
+    static final byte COMMIT = 1;
+    static final byte STAGE = 2;
+    static final byte TRACKED = 3;
+    static final byte STAT_CACHE = 4;
+    static final byte TREE = 5;
+    static final byte CHUNKS = 6;
+    static final byte STAGE_JOURNAL = 7;
+
+    private static final int ID_SIZE = 20;
+    private static final char[] HEX = "0123456789abcdef".toCharArray();
+
+    /** True if BYTES were written by Java serialization. */
+    static boolean isLegacy(byte[] bytes) {
+        return bytes.length >= 2 && (bytes[0] & 0xff) == 0xac && (bytes[1] & 0xff) == 0xed;
+    }
+
+    /** Reads an object out of a file written by the old Utils.writeObject. */
+    static <T extends Serializable> T readLegacy(byte[] bytes, Class<T> expectedClass) {
+        try (ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(bytes))) {
+            return expectedClass.cast(in.readObject());
+        } catch (IOException | ClassCastException | ClassNotFoundException excp) {
+            throw new IllegalArgumentException(excp.getMessage());
+        }
+    }
+
+    /** Builds the encoding of one object. */
+    static class Writer {
+        private final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        private final HashMap<String, Integer> dirs = new HashMap<>();
+
+        Writer(byte kind) {
+            out.write('G');
+            out.write('L');
+            out.write(VERSION);
+            out.write(kind);
+        }
+
+        // for records appended to an object already written, so no header
+        Writer() {
+        }
+
+        Writer varint(long value) {
+            while ((value & ~0x7fL) != 0) {
+                out.write((int) ((value & 0x7f) | 0x80));
+                value >>>= 7;
+            }
+            out.write((int) value);
+            return this;
+        }
+
+        Writer string(String s) {
+            byte[] bytes = s.getBytes(StandardCharsets.UTF_8);
+            varint(bytes.length);
+            out.write(bytes, 0, bytes.length);
+            return this;
+        }
+
+        /** Writes an ID, or nothing but a marker for null. */
+        Writer id(String id) {
+            if (id == null) {
+                out.write(0);
+            } else {
+                out.write(1);
+                for (int k = 0; k < ID_SIZE; k++) {
+                    out.write(Character.digit(id.charAt(2 * k), 16) << 4
+                            | Character.digit(id.charAt(2 * k + 1), 16));
+                }
+            }
+            return this;
+        }
+
+        Writer path(String path) {
+            int slash = path.lastIndexOf('/');
+            String dir = slash < 0 ? "" : path.substring(0, slash);
+            Integer known = dirs.get(dir);
+            if (known != null) {
+                varint(known + 1);
+            } else {
+                varint(0);
+                string(dir);
+                dirs.put(dir, dirs.size());
+            }
+            return string(path.substring(slash + 1));
+        }
+
+        byte[] toByteArray() {
+            return out.toByteArray();
+        }
+    }
+
+    /** Reads back what a Writer produced. */
+    static class Reader {
+        private final byte[] data;
+        private final int version;
+        private int pos;
+        private final List<String> dirs = new ArrayList<>();
+
+        /** Starts reading BYTES, which must hold an object of the given KIND. */
+        Reader(byte[] bytes, byte kind) {
+            data = bytes;
+            if (data.length < 4 || data[0] != 'G' || data[1] != 'L') {
+                throw new IllegalArgumentException("not a gitlet object");
+            }
+            if (data[2] > VERSION) {
+                throw new IllegalArgumentException("object written by a newer gitlet");
+            }
+            if (data[3] != kind) {
+                throw new IllegalArgumentException("unexpected kind of gitlet object");
+            }
+            version = data[2];
+            pos = 4;
+        }
+
+        // format version the object was written with
+        int version() {
+            return version;
+        }
+
+        // how many bytes have been read, header included
+        int position() {
+            return pos;
+        }
+
+        boolean atEnd() {
+            return pos >= data.length;
+        }
+
+        long varint() {
+            long value = 0;
+            int shift = 0;
+            int b;
+            do {
+                b = data[pos++];
+                value |= (long) (b & 0x7f) << shift;
+                shift += 7;
+            } while ((b & 0x80) != 0);
+            return value;
+        }
+
+        int count() {
+            return (int) varint();
+        }
+
+        String string() {
+            int length = count();
+            String s = new String(data, pos, length, StandardCharsets.UTF_8);
+            pos += length;
+            return s;
+        }
+
+        String id() {
+            if (data[pos++] == 0) {
+                return null;
+            }
+            char[] hex = new char[2 * ID_SIZE];
+            for (int k = 0; k < ID_SIZE; k++) {
+                int b = data[pos++] & 0xff;
+                hex[2 * k] = HEX[b >>> 4];
+                hex[2 * k + 1] = HEX[b & 0xf];
+            }
+            return new String(hex);
+        }
+
+        String path() {
+            int ref = count();
+            String dir;
+            if (ref == 0) {
+                dir = string();
+                dirs.add(dir);
+            } else {
+                dir = dirs.get(ref - 1);
+            }
+            String base = string();
+            return dir.isEmpty() ? base : dir + "/" + base;
+        }
+    }
+}
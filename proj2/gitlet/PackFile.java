@@ -0,0 +1,662 @@
+package gitlet;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.security.DigestOutputStream;
+import java.security.MessageDigest;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/** A single pack holding many commits and blobs, each deflate-compressed.
+ *  The pack file is the concatenated compressed objects; INDEX is a header
+ *  followed by fixed-width records sorted by object ID, so a lookup is a
+ *  binary search over the memory-mapped index and one positioned read from
+ *  the pack.
+ *
+ *  A pack is named pack-HASH.pack after the SHA-1 of its bytes, and the
+ *  index header holds that hash, so the index names its own pack. Repacking
+ *  writes the new pack beside the old one and renames the new index into
+ *  place last: until then the old index and pack are still a pair, and
+ *  after it the new ones are. Indexes before version 3 use PACK.
+ *
+ *  After the header the index has a fan-out table: entry b is the number of
+ *  records whose first ID byte is at most b, which narrows every search,
+ *  including lookups by abbreviated ID, to one 256th of the records.
+ *
+ *  Index record: 20-byte ID, 1-byte type, 8-byte offset, 4-byte compressed
+ *  length, 4-byte uncompressed length.
+ *
+ *  A blob whose type has the DELTA bit set is stored as the 20-byte ID of
+ *  its base followed by a compressed Delta against that base, which is the
+ *  version of the same path in the parent commit. Chains are never deeper
+ *  than MAX_DEPTH, and recently rebuilt bases are kept in a small cache.
+ *
+ *  Blobs bigger than BIG_BLOB are never packed. Packing means holding the
+ *  whole object in memory, and a loose blob can be copied into the working
+ *  directory without reading it at all.
+ *
+ *  @author Jenny Nguyen
+ */
+public class PackFile {
+    /** The pack of an index older than version 3, which does not name one. */
+    public static final File PACK = Utils.join(Repository.PACK_FOLDER, "objects.pack");
+    public static final File INDEX = Utils.join(Repository.PACK_FOLDER, "objects.idx");
+
+    static final byte COMMIT = 1;
+    static final byte BLOB = 2;
+    static final byte TREE = 3;
+    private static final byte DELTA = 0x10;
+    private static final int MAX_DEPTH = 10;
+    private static final long CACHE_BYTES = 32L << 20;
+    static final long BIG_BLOB = 16L << 20;
+
+    private static final int INDEX_MAGIC = 0x47494458; // "GIDX"
+    private static final int VERSION = 3;
+    private static final int HEADER_SIZE = 12; // then the pack's hash, from version 3 on
+    private static final int FANOUT_SIZE = 256 * 4;
+    private static final int ID_SIZE = 20;
+    private static final int RECORD_SIZE = ID_SIZE + 1 + 8 + 4 + 4;
+
+    /** The pack opened by this process, if any. */
+    private static PackFile current;
+    private static boolean opened;
+    private static long openedStamp; // INDEX's modification time when it was opened
+
+    private final MappedByteBuffer index;
+    private final FileChannel pack;
+    private final int count;
+    private final boolean hasFanout; // version 1 indexes were written without one
+    private final int header; // bytes before the fan-out table
+
+    /** Recently rebuilt delta bases, least recently used first. */
+    private final LinkedHashMap<String, byte[]> bases = new LinkedHashMap<>(16, 0.75f, true);
+    private long cachedBytes;
+
+    private PackFile(MappedByteBuffer idx, FileChannel p) {
+        index = idx;
+        pack = p;
+        count = index.getInt(8);
+        hasFanout = index.getInt(4) >= 2;
+        header = index.getInt(4) >= 3 ? HEADER_SIZE + ID_SIZE : HEADER_SIZE;
+    }
+
+    // the pack file the index IDX goes with
+    private static File packOf(MappedByteBuffer idx) {
+        int version = idx.getInt(4);
+        if (idx.getInt(0) != INDEX_MAGIC || version < 1 || version > VERSION) {
+            throw new IllegalArgumentException("corrupt pack index");
+        }
+        if (version < 3) {
+            return PACK;
+        }
+        byte[] hash = new byte[ID_SIZE];
+        for (int k = 0; k < ID_SIZE; k++) {
+            hash[k] = idx.get(HEADER_SIZE + k);
+        }
+        return packNamed(toHex(hash, 0));
+    }
+
+    private static File packNamed(String hash) {
+        return Utils.join(Repository.PACK_FOLDER, "pack-" + hash + ".pack");
+    }
+
+    /** The repository's pack, or null if it has never been packed. Safe to
+     *  call from several threads; reads of an open pack are too. */
+    static synchronized PackFile current() {
+        if (!opened) {
+            opened = true;
+            openedStamp = INDEX.lastModified();
+            if (INDEX.exists()) {
+                try (FileChannel idx = FileChannel.open(INDEX.toPath())) {
+                    MappedByteBuffer map = idx.map(FileChannel.MapMode.READ_ONLY, 0, idx.size());
+                    File packFile = packOf(map);
+                    if (packFile.exists()) {
+                        current = new PackFile(map, FileChannel.open(packFile.toPath()));
+                    }
+                } catch (IOException excp) {
+                    throw new IllegalArgumentException(excp.getMessage());
+                }
+            }
+        }
+        return current;
+    }
+
+    /** Drops the open pack if another process has repacked since it was
+     *  opened. Called by the daemon before each command. */
+    static synchronized void refresh() {
+        if (opened && INDEX.lastModified() != openedStamp) {
+            close();
+        }
+    }
+
+    /** Forgets the open pack so the next lookup sees a freshly written one. */
+    private static synchronized void close() {
+        if (current != null) {
+            try {
+                current.pack.close();
+            } catch (IOException excp) {
+                throw new IllegalArgumentException(excp.getMessage());
+            }
+        }
+        current = null;
+        opened = false;
+    }
+
+    /** True if an object of the given TYPE with ID is in the pack. */
+    static boolean contains(String id, byte type) {
+        PackFile p = current();
+        if (p == null) {
+            return false;
+        }
+        int i = p.find(id);
+        return i >= 0 && p.type(i) == type;
+    }
+
+    /** The uncompressed bytes of object ID, or null if it is not packed. */
+    static byte[] read(String id) {
+        PackFile p = current();
+        if (p == null) {
+            return null;
+        }
+        return p.load(id);
+    }
+
+    /** IDs of the packed objects of the given TYPE that start with PREFIX,
+     *  in sorted order. */
+    static List<String> idsWithPrefix(String prefix, byte type) {
+        List<String> result = new ArrayList<>();
+        PackFile p = current();
+        if (p == null || !prefix.matches("[0-9a-f]{0,40}")) {
+            return result;
+        }
+        // the first record at or above PREFIX padded out with zeroes
+        StringBuilder lowest = new StringBuilder(prefix);
+        while (lowest.length() < 2 * ID_SIZE) {
+            lowest.append('0');
+        }
+        byte[] key = toBytes(lowest.toString());
+        int lo = p.lowerBound(key);
+        for (int i = lo; i < p.count; i++) {
+            String id = p.id(i);
+            if (!id.startsWith(prefix)) {
+                break;
+            }
+            if (p.type(i) == type) {
+                result.add(id);
+            }
+        }
+        return result;
+    }
+
+    /** Moves every loose commit, tree and blob into a new pack together with the
+     *  contents of the existing one, then deletes the loose files. A loose
+     *  copy of an object that is also packed replaces the packed one, which
+     *  is how migrate rewrites old packed commits. Objects are
+     *  streamed into the pack as they are found; only the index records are
+     *  kept in memory so they can be written out sorted. Both files are
+     *  synced before the index is renamed into place, and the loose files
+     *  and old pack are only deleted after. */
+    static void packObjects() {
+        List<File> looseCommits = Repository.looseObjects(Repository.COMMIT_FOLDER, "");
+        List<File> looseTrees = Repository.looseObjects(Repository.TREE_FOLDER, "");
+        List<File> looseBlobs = new ArrayList<>();
+        for (File f : Repository.looseObjects(Repository.BLOB_FOLDER, "")) {
+            if (f.length() <= BIG_BLOB) {
+                looseBlobs.add(f);
+            }
+        }
+        if (looseCommits.isEmpty() && looseTrees.isEmpty() && looseBlobs.isEmpty()) {
+            return;
+        }
+
+        Repository.PACK_FOLDER.mkdir();
+        File tmpPack = Utils.join(Repository.PACK_FOLDER, "objects.pack.tmp");
+        File tmpIndex = Utils.join(Repository.PACK_FOLDER, "objects.idx.tmp");
+        TreeMap<String, Entry> entries = new TreeMap<>();
+        MessageDigest md = Blob.sha1Digest();
+        try (FileOutputStream file = new FileOutputStream(tmpPack);
+             BufferedOutputStream packOut = new BufferedOutputStream(
+                     new DigestOutputStream(file, md))) {
+            long offset = 0;
+            PackFile old = current();
+            if (old != null) {
+                HashSet<String> loose = new HashSet<>();
+                for (File f : looseCommits) {
+                    loose.add(Repository.looseID(f));
+                }
+                for (int i = 0; i < old.count; i++) {
+                    if (loose.contains(old.id(i))) {
+                        continue;
+                    }
+                    byte[] data = old.rawBytes(i);
+                    packOut.write(data);
+                    byte type = old.index.get(old.record(i) + ID_SIZE);
+                    entries.put(old.id(i), new Entry(type, offset,
+                            data.length, old.rawLength(i)));
+                    offset += data.length;
+                }
+            }
+            TreeMap<String, String> deltaBases = chooseDeltaBases(looseCommits, old);
+            offset = packLoose(looseCommits, COMMIT, packOut, offset, entries, deltaBases, old);
+            offset = packLoose(looseTrees, TREE, packOut, offset, entries, deltaBases, old);
+            packLoose(looseBlobs, BLOB, packOut, offset, entries, deltaBases, old);
+            packOut.flush();
+            file.getFD().sync();
+        } catch (IOException excp) {
+            throw new IllegalArgumentException(excp.getMessage());
+        }
+        String hash = Blob.toHex(md.digest());
+        File packFile = packNamed(hash);
+
+        try (FileOutputStream file = new FileOutputStream(tmpIndex);
+             DataOutputStream idxOut = new DataOutputStream(new BufferedOutputStream(file))) {
+            idxOut.writeInt(INDEX_MAGIC);
+            idxOut.writeInt(VERSION);
+            idxOut.writeInt(entries.size());
+            idxOut.write(toBytes(hash));
+            int[] fanout = new int[256];
+            for (String id : entries.keySet()) {
+                fanout[Integer.parseInt(id.substring(0, 2), 16)]++;
+            }
+            int total = 0;
+            for (int b = 0; b < 256; b++) {
+                total += fanout[b];
+                idxOut.writeInt(total);
+            }
+            for (String id : entries.keySet()) {
+                Entry e = entries.get(id);
+                idxOut.write(toBytes(id));
+                idxOut.writeByte(e.type);
+                idxOut.writeLong(e.offset);
+                idxOut.writeInt(e.length);
+                idxOut.writeInt(e.rawLength);
+            }
+            idxOut.flush();
+            file.getFD().sync();
+        } catch (IOException excp) {
+            throw new IllegalArgumentException(excp.getMessage());
+        }
+
+        close();
+        try {
+            // a new name, so the old index still has its pack until the rename below
+            Files.move(tmpPack.toPath(), packFile.toPath(), StandardCopyOption.ATOMIC_MOVE);
+            Files.move(tmpIndex.toPath(), INDEX.toPath(), StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException excp) {
+            throw new IllegalArgumentException(excp.getMessage());
+        }
+        deleteOtherPacks(packFile);
+        deleteAll(looseCommits);
+        deleteAll(looseTrees);
+        deleteAll(looseBlobs);
+    }
+
+    // appends each loose file not already in ENTRIES to the pack, returns the new end offset
+    private static long packLoose(List<File> files, byte type, BufferedOutputStream packOut,
+                                  long offset, TreeMap<String, Entry> entries,
+                                  TreeMap<String, String> deltaBases, PackFile old)
+            throws IOException {
+        for (File f : files) {
+            String id = Repository.looseID(f);
+            if (entries.containsKey(id)) {
+                continue;
+            }
+            byte[] contents = Utils.readContents(f);
+            String baseID = deltaBases.get(id);
+            // a big or chunked base is not worth reading into memory
+            byte[] base = baseID == null || Repository.looseObject(Repository.BLOB_FOLDER,
+                    baseID).length() > BIG_BLOB ? null : contentOf(baseID, old);
+            if (base != null) {
+                byte[] delta = Delta.create(base, contents);
+                if (delta.length < contents.length / 2) {
+                    byte[] data = deflate(delta);
+                    packOut.write(toBytes(baseID));
+                    packOut.write(data);
+                    entries.put(id, new Entry((byte) (type | DELTA), offset,
+                            ID_SIZE + data.length, delta.length));
+                    offset += ID_SIZE + data.length;
+                    continue;
+                }
+            }
+            deltaBases.remove(id); // stored whole, so it starts a new chain
+            byte[] data = deflate(contents);
+            packOut.write(data);
+            entries.put(id, new Entry(type, offset, data.length, contents.length));
+            offset += data.length;
+        }
+        return offset;
+    }
+
+    /** Picks a delta base for every loose blob: the version of the same path
+     *  in the parent of the first loose commit that introduced it. Commits are
+     *  visited oldest first so a blob never ends up based on a later version
+     *  of itself, and bases that would make a chain deeper than MAX_DEPTH are
+     *  dropped. */
+    private static TreeMap<String, String> chooseDeltaBases(List<File> looseCommits,
+                                                            PackFile old) {
+        TreeMap<String, String> result = new TreeMap<>();
+        HashMap<String, Commit> commits = new HashMap<>();
+        for (File f : looseCommits) {
+            commits.put(Repository.looseID(f), Commit.fromBytes(Utils.readContents(f)));
+        }
+        HashMap<String, Integer> heights = new HashMap<>();
+        List<String> order = new ArrayList<>(commits.keySet());
+        for (String id : order) {
+            looseHeight(id, commits, heights);
+        }
+        order.sort((a, b) -> Integer.compare(heights.get(a), heights.get(b)));
+
+        HashSet<String> seen = new HashSet<>();
+        for (String id : order) {
+            Commit c = commits.get(id);
+            if (c.getParent() == null) {
+                continue; // everything in the first commit is new, so there are no bases
+            }
+            Commit parent = commits.get(c.getParent());
+            if (parent == null) {
+                parent = Commit.fromFile(c.getParent());
+            }
+            // only the paths this commit changed, without rebuilding either snapshot
+            for (Tree.Change ch : Commit.diff(parent, c)) {
+                String blobID = ch.getAfter();
+                if (blobID == null || !seen.add(blobID)
+                        || (old != null && old.find(blobID) >= 0)) {
+                    continue;
+                }
+                if (ch.getBefore() != null) {
+                    result.put(blobID, ch.getBefore());
+                }
+            }
+        }
+
+        HashMap<String, Integer> depths = new HashMap<>();
+        for (String blobID : new ArrayList<>(result.keySet())) {
+            chainDepth(blobID, result, depths, old);
+        }
+        return result;
+    }
+
+    // number of loose ancestors between commit ID and the packed part of history
+    private static int looseHeight(String id, HashMap<String, Commit> commits,
+                                   HashMap<String, Integer> heights) {
+        Integer known = heights.get(id);
+        if (known != null) {
+            return known;
+        }
+        Commit c = commits.get(id);
+        int h = 0;
+        if (c.getParent() != null && commits.containsKey(c.getParent())) {
+            h = 1 + looseHeight(c.getParent(), commits, heights);
+        }
+        heights.put(id, h);
+        return h;
+    }
+
+    /** Length of the delta chain under blob ID, removing its base from
+     *  BASES if keeping it would make the chain too deep or circular. */
+    private static int chainDepth(String id, TreeMap<String, String> bases,
+                                  HashMap<String, Integer> depths, PackFile old) {
+        Integer known = depths.get(id);
+        if (known != null) {
+            return known;
+        }
+        depths.put(id, -1); // in progress; seeing it again means a cycle
+        int depth = 0;
+        String baseID = bases.get(id);
+        if (baseID != null) {
+            int baseDepth = chainDepth(baseID, bases, depths, old);
+            if (baseDepth < 0 || baseDepth >= MAX_DEPTH) {
+                bases.remove(id);
+            } else {
+                depth = baseDepth + 1;
+            }
+        } else if (old != null) {
+            depth = old.packedDepth(id);
+        }
+        depths.put(id, depth);
+        return depth;
+    }
+
+    // full contents of blob ID if it is still loose or in the old pack, else null (chunked)
+    private static byte[] contentOf(String id, PackFile old) {
+        File loose = Repository.looseObject(Repository.BLOB_FOLDER, id);
+        if (loose.exists()) {
+            return Utils.readContents(loose);
+        }
+        return old == null ? null : old.load(id);
+    }
+
+    // deletes every pack but KEEP, including any left by a repack that crashed after its rename
+    private static void deleteOtherPacks(File keep) {
+        File[] files = Repository.PACK_FOLDER.listFiles();
+        for (File f : files == null ? new File[0] : files) {
+            String name = f.getName();
+            if ((name.equals(PACK.getName()) || name.matches("pack-[0-9a-f]{40}\\.pack"))
+                    && !f.equals(keep)) {
+                f.delete();
+            }
+        }
+    }
+
+    // deletes the loose FILES and any fan-out directories they leave empty
+    private static void deleteAll(List<File> files) {
+        for (File f : files) {
+            f.delete();
+            f.getParentFile().delete();
+        }
+    }
+
+    /** Where one object lives in the pack being written. */
+    private static class Entry {
+        private final byte type;
+        private final long offset;
+        private final int length;
+        private final int rawLength;
+
+        Entry(byte t, long o, int l, int r) {
+            type = t;
+            offset = o;
+            length = l;
+            rawLength = r;
+        }
+    }
+
+    /** The uncompressed bytes of object ID in this pack, or null. Delta
+     *  chains are resolved through the cache of recently used bases. */
+    private byte[] load(String id) {
+        byte[] cached;
+        synchronized (bases) {
+            cached = bases.get(id);
+        }
+        if (cached != null) {
+            return cached;
+        }
+        int i = find(id);
+        if (i < 0) {
+            return null;
+        }
+        byte[] data = rawBytes(i);
+        if ((index.get(record(i) + ID_SIZE) & DELTA) == 0) {
+            return inflate(data, 0, data.length, rawLength(i));
+        }
+        String baseID = toHex(data, 0);
+        byte[] base = load(baseID);
+        remember(baseID, base);
+        return Delta.apply(base, inflate(data, ID_SIZE, data.length - ID_SIZE, rawLength(i)));
+    }
+
+    private void remember(String id, byte[] contents) {
+        synchronized (bases) {
+            if (contents.length > CACHE_BYTES / 4 || bases.containsKey(id)) {
+                return;
+            }
+            bases.put(id, contents);
+            cachedBytes += contents.length;
+            Iterator<Map.Entry<String, byte[]>> iter = bases.entrySet().iterator();
+            while (cachedBytes > CACHE_BYTES && iter.hasNext()) {
+                cachedBytes -= iter.next().getValue().length;
+                iter.remove();
+            }
+        }
+    }
+
+    /** Number of deltas that must be applied to rebuild packed object ID. */
+    private int packedDepth(String id) {
+        int depth = 0;
+        int i = find(id);
+        while (i >= 0 && (index.get(record(i) + ID_SIZE) & DELTA) != 0) {
+            depth++;
+            i = find(toHex(rawBytes(i), 0));
+        }
+        return depth;
+    }
+
+    /** Position of ID among the sorted index records, or -1. */
+    private int find(String id) {
+        if (id.length() != 2 * ID_SIZE) {
+            return -1;
+        }
+        byte[] key = toBytes(id);
+        int i = lowerBound(key);
+        if (i < count && compareAt(i, key) == 0) {
+            return i;
+        }
+        return -1;
+    }
+
+    /** Position of the first record whose ID is not less than KEY. */
+    private int lowerBound(byte[] key) {
+        int lo = 0;
+        int hi = count;
+        if (hasFanout) {
+            int first = key[0] & 0xff;
+            lo = first == 0 ? 0 : index.getInt(header + 4 * (first - 1));
+            hi = index.getInt(header + 4 * first);
+        }
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (compareAt(mid, key) < 0) {
+                lo = mid + 1;
+            } else {
+                hi = mid;
+            }
+        }
+        return lo;
+    }
+
+    // offset of record I in the index
+    private int record(int i) {
+        return header + (hasFanout ? FANOUT_SIZE : 0) + i * RECORD_SIZE;
+    }
+
+    private int compareAt(int i, byte[] key) {
+        int base = record(i);
+        for (int k = 0; k < ID_SIZE; k++) {
+            int cmp = Integer.compare(index.get(base + k) & 0xff, key[k] & 0xff);
+            if (cmp != 0) {
+                return cmp;
+            }
+        }
+        return 0;
+    }
+
+    private String id(int i) {
+        int base = record(i);
+        StringBuilder sb = new StringBuilder(2 * ID_SIZE);
+        for (int k = 0; k < ID_SIZE; k++) {
+            sb.append(String.format("%02x", index.get(base + k) & 0xff));
+        }
+        return sb.toString();
+    }
+
+    // kind of object stored in record I, ignoring whether it is a delta
+    private byte type(int i) {
+        return (byte) (index.get(record(i) + ID_SIZE) & ~DELTA);
+    }
+
+    private int rawLength(int i) {
+        return index.getInt(record(i) + ID_SIZE + 1 + 8 + 4);
+    }
+
+    /** The compressed bytes of record I, read straight from the pack. */
+    private byte[] rawBytes(int i) {
+        int base = record(i) + ID_SIZE + 1;
+        long offset = index.getLong(base);
+        int length = index.getInt(base + 8);
+        ByteBuffer buf = ByteBuffer.allocate(length);
+        try {
+            while (buf.hasRemaining()) {
+                if (pack.read(buf, offset + buf.position()) < 0) {
+                    throw new IllegalArgumentException("truncated pack file");
+                }
+            }
+        } catch (IOException excp) {
+            throw new IllegalArgumentException(excp.getMessage());
+        }
+        return buf.array();
+    }
+
+    private static byte[] deflate(byte[] contents) {
+        Deflater d = new Deflater(Deflater.BEST_COMPRESSION);
+        d.setInput(contents);
+        d.finish();
+        ByteArrayOutputStream out = new ByteArrayOutputStream(contents.length / 2 + 16);
+        byte[] buf = new byte[8192];
+        while (!d.finished()) {
+            out.write(buf, 0, d.deflate(buf));
+        }
+        d.end();
+        return out.toByteArray();
+    }
+
+    private static byte[] inflate(byte[] data, int off, int len, int length) {
+        Inflater inf = new Inflater();
+        inf.setInput(data, off, len);
+        byte[] result = new byte[length];
+        try {
+            int n = 0;
+            while (n < length && !inf.finished()) {
+                n += inf.inflate(result, n, length - n);
+            }
+        } catch (DataFormatException excp) {
+            throw new IllegalArgumentException(excp.getMessage());
+        } finally {
+            inf.end();
+        }
+        return result;
+    }
+
+    private static String toHex(byte[] data, int off) {
+        StringBuilder sb = new StringBuilder(2 * ID_SIZE);
+        for (int k = off; k < off + ID_SIZE; k++) {
+            sb.append(String.format("%02x", data[k] & 0xff));
+        }
+        return sb.toString();
+    }
+
+    private static byte[] toBytes(String id) {
+        byte[] result = new byte[ID_SIZE];
+        for (int k = 0; k < ID_SIZE; k++) {
+            result[k] = (byte) Integer.parseInt(id.substring(2 * k, 2 * k + 2), 16);
+        }
+        return result;
+    }
+}
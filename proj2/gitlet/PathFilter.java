@@ -0,0 +1,82 @@
+package gitlet;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Collection;
+import java.util.HashSet;
+
+/** Bloom filter of the paths a commit changed relative to its first
+ *  parent, kept for each commit alongside the commit-graph. A path that is
+ *  not in a commit's filter was certainly not changed by it, so
+ *  path-limited history only has to look at the few commits whose filter
+ *  says maybe. Each changed file's directories are added too, so a
+ *  directory can be looked up the same way.
+ *
+ *  A filter has BITS_PER_PATH bits for each path, in whole longs, which
+ *  keeps false positives near 1%. A commit changing more than MAX_PATHS
+ *  paths gets an empty filter instead, which matches anything.
+ *
+ *  @author Jenny Nguyen
+ */
+class PathFilter {
+    private static final int BITS_PER_PATH = 10;
+    private static final int HASHES = 7;
+    private static final int MAX_PATHS = 512;
+
+    /** The filter for a commit that changed PATHS. */
+    static byte[] of(Collection<String> paths) {
+        HashSet<String> keys = new HashSet<>();
+        for (String path : paths) {
+            for (int slash = path.length(); slash > 0; slash = path.lastIndexOf('/', slash - 1)) {
+                if (!keys.add(path.substring(0, slash))) {
+                    break; // its directories are already in
+                }
+            }
+            if (keys.size() > MAX_PATHS) {
+                return new byte[0];
+            }
+        }
+        byte[] bits = new byte[Math.max(1, (keys.size() * BITS_PER_PATH + 63) / 64) * 8];
+        for (String key : keys) {
+            long h = hash(key);
+            for (int i = 0; i < HASHES; i++) {
+                int bit = index(h, i, bits.length * 8);
+                bits[bit >> 3] |= 1 << (bit & 7);
+            }
+        }
+        return bits;
+    }
+
+    /** False if the filter of LENGTH bytes at OFFSET in FILTERS certainly
+     *  does not hold PATH. */
+    static boolean mayContain(ByteBuffer filters, int offset, int length, String path) {
+        if (length == 0) {
+            return true;
+        }
+        long h = hash(path);
+        for (int i = 0; i < HASHES; i++) {
+            int bit = index(h, i, length * 8);
+            if ((filters.get(offset + (bit >> 3)) & (1 << (bit & 7))) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // the I'th of a key's bits in a filter of SIZE bits, by double hashing H's two halves
+    private static int index(long h, int i, int size) {
+        int h1 = (int) h;
+        int h2 = (int) (h >>> 32) | 1;
+        return Math.floorMod(h1 + i * h2, size);
+    }
+
+    // 64-bit FNV-1a of the UTF-8 bytes of KEY; stored filters depend on it never changing
+    private static long hash(String key) {
+        long h = 0xcbf29ce484222325L;
+        for (byte b : key.getBytes(StandardCharsets.UTF_8)) {
+            h ^= b & 0xff;
+            h *= 0x100000001b3L;
+        }
+        return h;
+    }
+}
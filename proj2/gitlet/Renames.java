@@ -0,0 +1,302 @@
+package gitlet;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.function.Function;
+
+/** Pairs the files that disappeared between two snapshots with the ones
+ *  that appeared, to report them as renamed or copied rather than as a
+ *  deletion and an unrelated addition.
+ *
+ *  Files with the same blob ID are paired first, from a map of IDs. The
+ *  rest are compared by the sets of lines they hold. Each file gets a
+ *  MinHash sketch, the smallest of its line hashes under each of SKETCH
+ *  hash functions; two files agree on a share of the slots close to how
+ *  alike their line sets are. Sketches are bucketed by BANDS bands of ROWS
+ *  slots, and only files sharing a bucket are scored at all, so thousands
+ *  of moved files are not compared with each other two by two; even among
+ *  files that are nearly all alike, an added file is scored against no
+ *  more than MAX_COMPARED others. Pairs at least MIN_SCORE percent alike
+ *  are taken best first, each file in at most one of them.
+ *
+ *  A copy is an added file whose blob is exactly one that was kept.
+ *
+ *  @author Jenny Nguyen
+ */
+class Renames {
+    private static final int SKETCH = 64;
+    private static final int BANDS = 32;
+    private static final int ROWS = SKETCH / BANDS;
+    private static final int MIN_SCORE = 50;
+    private static final int MAX_COMPARED = 256;
+
+    /** Per-slot seeds for the sketch's hash functions. Fixed so that the
+     *  same files always pair the same way. */
+    private static final long[] SEEDS = new long[SKETCH];
+
+    static {
+        long s = 0x72656e616d6573L;
+        for (int i = 0; i < SKETCH; i++) {
+            s += 0x9e3779b97f4a7c15L;
+            SEEDS[i] = mix(s);
+        }
+    }
+
+    /** A file found at TO that came from FROM, SCORE percent alike. */
+    static class Pair implements Comparable<Pair> {
+        private final String from;
+        private final String to;
+        private final int score;
+        private final boolean copy;
+
+        Pair(String f, String t, int s, boolean c) {
+            from = f;
+            to = t;
+            score = s;
+            copy = c;
+        }
+
+        String getFrom() {
+            return from;
+        }
+
+        String getTo() {
+            return to;
+        }
+
+        int getScore() {
+            return score;
+        }
+
+        boolean isCopy() {
+            return copy;
+        }
+
+        private boolean sameName() {
+            return from.substring(from.lastIndexOf('/') + 1)
+                    .equals(to.substring(to.lastIndexOf('/') + 1));
+        }
+
+        // the new path and where it came from, as status lists it
+        String describe() {
+            return to + (copy ? " (copied from " : " (renamed from ") + from + ")";
+        }
+
+        // best first, then keeping the file name, then by path so ties always go the same way
+        @Override
+        public int compareTo(Pair o) {
+            if (score != o.score) {
+                return o.score - score;
+            } else if (sameName() != o.sameName()) {
+                return sameName() ? -1 : 1;
+            }
+            int c = to.compareTo(o.to);
+            return c != 0 ? c : from.compareTo(o.from);
+        }
+    }
+
+    /** Renames from DELETED to ADDED, both path -> blob ID, and exact copies
+     *  of the files in KEPT, in the order of the added paths. The contents
+     *  of a deleted or an added path are read with OLD_CONTENTS or
+     *  NEW_CONTENTS, and only for files with no exact match. */
+    static List<Pair> find(Map<String, String> deleted, Map<String, String> added,
+                           Map<String, String> kept, Function<String, byte[]> oldContents,
+                           Function<String, byte[]> newContents) {
+        TreeMap<String, Pair> found = new TreeMap<>();
+        if (added.isEmpty()) {
+            return new ArrayList<>();
+        }
+        HashMap<String, String> byID = new HashMap<>();
+        for (Map.Entry<String, String> e : deleted.entrySet()) {
+            byID.putIfAbsent(e.getValue(), e.getKey());
+        }
+        HashSet<String> sources = new HashSet<>();
+        List<String> inexactAdded = new ArrayList<>();
+        for (Map.Entry<String, String> e : added.entrySet()) {
+            String from = byID.get(e.getValue());
+            if (from != null && sources.add(from)) {
+                found.put(e.getKey(), new Pair(from, e.getKey(), 100, false));
+            } else {
+                inexactAdded.add(e.getKey());
+            }
+        }
+        List<String> inexactDeleted = new ArrayList<>();
+        for (String path : deleted.keySet()) {
+            if (!sources.contains(path)) {
+                inexactDeleted.add(path);
+            }
+        }
+        if (!inexactDeleted.isEmpty() && !inexactAdded.isEmpty()) {
+            for (Pair p : similar(inexactDeleted, inexactAdded, oldContents, newContents)) {
+                found.put(p.getTo(), p);
+            }
+        }
+        if (!kept.isEmpty()) {
+            HashMap<String, String> keptByID = new HashMap<>();
+            for (Map.Entry<String, String> e : kept.entrySet()) {
+                keptByID.putIfAbsent(e.getValue(), e.getKey());
+            }
+            for (Map.Entry<String, String> e : added.entrySet()) {
+                String from = keptByID.get(e.getValue());
+                if (from != null && !found.containsKey(e.getKey())) {
+                    found.put(e.getKey(), new Pair(from, e.getKey(), 100, true));
+                }
+            }
+        }
+        return new ArrayList<>(found.values());
+    }
+
+    /** Renames among CHANGES, a diff between two commits' snapshots. */
+    static List<Pair> find(List<Tree.Change> changes) {
+        TreeMap<String, String> deleted = new TreeMap<>();
+        TreeMap<String, String> added = new TreeMap<>();
+        for (Tree.Change ch : changes) {
+            if (ch.getAfter() == null) {
+                deleted.put(ch.getPath(), ch.getBefore());
+            } else if (ch.getBefore() == null) {
+                added.put(ch.getPath(), ch.getAfter());
+            }
+        }
+        if (deleted.isEmpty()) {
+            return new ArrayList<>();
+        }
+        return find(deleted, added, Collections.emptyMap(),
+                path -> Blob.fromFile(deleted.get(path)).getContents(),
+                path -> Blob.fromFile(added.get(path)).getContents());
+    }
+
+    // the best pairs of at least MIN_SCORE between DELETED and ADDED, each path in one at most
+    private static List<Pair> similar(List<String> deleted, List<String> added,
+                                      Function<String, byte[]> oldContents,
+                                      Function<String, byte[]> newContents) {
+        long[][] oldLines = new long[deleted.size()][];
+        HashMap<Long, List<Integer>> buckets = new HashMap<>();
+        for (int i = 0; i < deleted.size(); i++) {
+            oldLines[i] = lines(oldContents.apply(deleted.get(i)));
+            long[] s = sketch(oldLines[i]);
+            for (int b = 0; b < BANDS; b++) {
+                buckets.computeIfAbsent(band(s, b), k -> new ArrayList<>()).add(i);
+            }
+        }
+        List<Pair> candidates = new ArrayList<>();
+        for (String path : added) {
+            long[] lines = lines(newContents.apply(path));
+            long[] s = sketch(lines);
+            HashSet<Integer> seen = new HashSet<>();
+            for (int b = 0; b < BANDS && seen.size() < MAX_COMPARED; b++) {
+                for (int i : buckets.getOrDefault(band(s, b), Collections.emptyList())) {
+                    if (seen.size() == MAX_COMPARED) {
+                        break;
+                    } else if (!seen.add(i)) {
+                        continue;
+                    }
+                    int score = score(oldLines[i], lines);
+                    if (score >= MIN_SCORE) {
+                        candidates.add(new Pair(deleted.get(i), path, score, false));
+                    }
+                }
+            }
+        }
+        Collections.sort(candidates);
+        HashSet<String> used = new HashSet<>();
+        List<Pair> result = new ArrayList<>();
+        for (Pair p : candidates) {
+            if (!used.contains(p.getFrom()) && !used.contains(p.getTo())) {
+                used.add(p.getFrom());
+                used.add(p.getTo());
+                result.add(p);
+            }
+        }
+        return result;
+    }
+
+    /** The distinct lines of CONTENTS, hashed, in increasing order. */
+    static long[] lines(byte[] contents) {
+        HashSet<Long> lines = new HashSet<>();
+        int start = 0;
+        for (int i = 0; i <= contents.length; i++) {
+            if (i == contents.length || contents[i] == '\n') {
+                if (i > start || i < contents.length) {
+                    lines.add(lineHash(contents, start, i));
+                }
+                start = i + 1;
+            }
+        }
+        long[] result = new long[lines.size()];
+        int n = 0;
+        for (long h : lines) {
+            result[n++] = h;
+        }
+        Arrays.sort(result);
+        return result;
+    }
+
+    /** The MinHash sketch of a set of LINES. An empty set has every slot at
+     *  its largest value. */
+    static long[] sketch(long[] lines) {
+        long[] s = new long[SKETCH];
+        Arrays.fill(s, Long.MAX_VALUE);
+        for (long h : lines) {
+            for (int k = 0; k < SKETCH; k++) {
+                long v = mix(h ^ SEEDS[k]);
+                if (v < s[k]) {
+                    s[k] = v;
+                }
+            }
+        }
+        return s;
+    }
+
+    /** How alike two sets of lines are, A and B as from lines, in percent
+     *  of all the lines either has: exact, where the sketches only estimate
+     *  it to pick out the pairs worth scoring. */
+    static int score(long[] a, long[] b) {
+        int same = 0;
+        int i = 0;
+        int j = 0;
+        while (i < a.length && j < b.length) {
+            if (a[i] == b[j]) {
+                same++;
+                i++;
+                j++;
+            } else if (a[i] < b[j]) {
+                i++;
+            } else {
+                j++;
+            }
+        }
+        int all = a.length + b.length - same;
+        return all == 0 ? 100 : 100 * same / all;
+    }
+
+    private static long band(long[] s, int b) {
+        long h = b;
+        for (int r = 0; r < ROWS; r++) {
+            h = mix(h * 31 + s[b * ROWS + r]);
+        }
+        return h;
+    }
+
+    // 64-bit FNV-1a of CONTENTS[FROM, TO)
+    private static long lineHash(byte[] contents, int from, int to) {
+        long h = 0xcbf29ce484222325L;
+        for (int i = from; i < to; i++) {
+            h ^= contents[i] & 0xff;
+            h *= 0x100000001b3L;
+        }
+        return h;
+    }
+
+    // the splitmix64 finalizer, spreading every bit of X over the result
+    private static long mix(long x) {
+        x = (x ^ (x >>> 30)) * 0xbf58476d1ce4e5b9L;
+        x = (x ^ (x >>> 27)) * 0x94d049bb133111ebL;
+        return x ^ (x >>> 31);
+    }
+}
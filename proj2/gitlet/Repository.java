@@ -1,10 +1,36 @@
 package gitlet;
 
+import java.io.BufferedWriter;
 import java.io.File;
+import java.io.FileInputStream;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileSystems;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.PathMatcher;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.text.ParsePosition;
+import java.text.SimpleDateFormat;
 import java.util.ArrayList;
-import java.util.Iterator;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.function.Function;
+import java.util.stream.IntStream;
 
 import static gitlet.Utils.*;
 
@@ -28,12 +54,22 @@ public class Repository {
     public static final File GITLET_DIR = join(CWD, ".gitlet");
     public static final File COMMIT_FOLDER = join(GITLET_DIR, ".commit");
     public static final File BLOB_FOLDER = join(GITLET_DIR, ".blobs"); // contains all the blobs
+    public static final File TREE_FOLDER = join(GITLET_DIR, ".trees"); // directories of snapshots
+    public static final File CHUNK_FOLDER = join(GITLET_DIR, ".chunked"); // large files' chunk lists
+    public static final File PACK_FOLDER = join(GITLET_DIR, ".pack"); // packed commits and blobs
     public static final File STAGING_AREA = join(GITLET_DIR, ".stagingarea");
     public static final File TRACKEDFILES = join(GITLET_DIR, ".trackefiles");
+    public static final File STAT_CACHE = join(GITLET_DIR, ".statcache"); // stat data + hashes
 
     public static final File BRANCHES = join(GITLET_DIR, ".branches");
     private static final File MASTER = join(BRANCHES, "master");
     public static final File HEAD = join(GITLET_DIR, "HEAD");
+    public static final File COMMIT_GRAPH = join(GITLET_DIR, ".commitgraph"); // ancestry records
+    public static final File COMMIT_LOOKUP = join(GITLET_DIR, ".commitlookup"); // ID -> record
+    public static final File PATH_FILTERS = join(GITLET_DIR, ".commitpaths"); // where each filter ends
+    public static final File PATH_FILTER_DATA = join(GITLET_DIR, ".commitpathdata"); // path filters
+    public static final File COMMIT_LOG = join(GITLET_DIR, ".commitlog"); // commit metadata
+    public static final File MESSAGE_INDEX = join(GITLET_DIR, ".msgindex"); // words -> commits
 
     public void init() {
         if (Repository.GITLET_DIR.exists()) {
@@ -49,6 +85,12 @@ public class Repository {
             if (!Repository.BLOB_FOLDER.exists()) {
                 Repository.BLOB_FOLDER.mkdir();
             }
+            if (!Repository.TREE_FOLDER.exists()) {
+                Repository.TREE_FOLDER.mkdir();
+            }
+            if (!Repository.CHUNK_FOLDER.exists()) {
+                Repository.CHUNK_FOLDER.mkdir();
+            }
             if (!Repository.BRANCHES.exists()) {
                 Repository.BRANCHES.mkdir();
             }
@@ -89,15 +131,17 @@ public class Repository {
 
             Commit initialCommit = new Commit("initial commit");
             initialCommit.saveCommit();
+            CommitGraph.append(initialCommit);
+            CommitIndex.append(initialCommit);
 
             writeContents(MASTER, initialCommit.getID());
             writeContents(HEAD, "master");
         }
     }
 
+    // ends the current command; Main (or the daemon) prints the message
     private static void printErrorMessage(String s) {
-        Utils.message(s);
-        System.exit(0);
+        throw new GitletException(s);
     }
 
     /** Adds a copy of the file as it currently exists to the staging area
@@ -111,33 +155,122 @@ public class Repository {
      * then changed back to it’s original version). The file will no longer
      * be staged for removal (see gitlet rm), if it was at the time of the command. */
     public void add(String name) {
-        File f = join(CWD, name);
+        add(new String[] {name});
+    }
+
+    /** Adds every file named by NAMES, where a name may also be a directory
+     * (all files under it) or a glob such as *.txt or src/**.java. Files are
+     * hashed in parallel as streams, unchanged files are recognized from
+     * the stat cache without being read, and the staging area, tracked
+     * files and stat cache are each written once at the end. */
+    public void add(String... names) {
         StagingArea stage = StagingArea.fromFile();
-        if (stage.checkStageRemoval(name)) {
-            stage.saveStage();
-            return;
+        TreeSet<String> files = new TreeSet<>();
+        boolean unstaged = false;
+        for (String name : names) {
+            if (stage.checkStageRemoval(name)) {
+                unstaged = true; // a file staged for removal need not exist
+                continue;
+            }
+            for (String file : expandPath(name)) {
+                if (stage.checkStageRemoval(file)) {
+                    unstaged = true;
+                } else {
+                    files.add(file);
+                }
+            }
         }
-        if (!f.exists()) {
-            printErrorMessage("File does not exist.");
+        if (files.isEmpty()) {
+            if (unstaged) {
+                stage.saveStage();
+            }
+            return;
         }
-        String text = readContentsAsString(f);
         Commit curr = Commit.fromFile(findHeadID());
+        StatCache cache = StatCache.fromFile();
+        PackFile.current(); // opened once here rather than racing in the workers
+
+        List<String> ordered = new ArrayList<>(files);
+        String[] ids = new String[ordered.size()];
+        IntStream.range(0, ids.length).parallel().forEach(i -> {
+            String name = ordered.get(i);
+            String id = cache.cachedHash(name);
+            if (id == null || !Blob.exists(id)) {
+                id = Blob.storeFile(join(CWD, name));
+            }
+            ids[i] = id;
+        });
 
         TrackedFiles track = TrackedFiles.fromFile();
-        track.putFile(name); // automatically saves
+        track.putFiles(ordered);
+        for (int i = 0; i < ids.length; i++) {
+            String name = ordered.get(i);
+            /** if file and its contents the same in current commit, remove from staging area
+             * if commit does not have or diff version, add to staging area
+             */
+            if (ids[i].equals(curr.getBlobID(name))) {
+                stage.remove(name);
+            } else {
+                stage.addNew(name, ids[i]);
+            }
+            cache.record(name, ids[i]);
+        }
+        track.saveFiles();
+        stage.saveStage();
+        cache.saveCache();
+    }
 
-        Blob b = new Blob(f, name);
+    /** Working files named by NAME: the file itself, every file under it if
+     * it is a directory, or every file matching it if it is a glob. */
+    private List<String> expandPath(String name) {
+        File f = join(CWD, name);
+        List<String> result = new ArrayList<>();
+        if (f.isFile()) {
+            result.add(relativeName(f.toPath()));
+        } else if (f.isDirectory()) {
+            result.addAll(workingFiles(f.toPath(), null));
+        } else if (name.matches(".*[*?\\[{].*")) {
+            PathMatcher matcher = FileSystems.getDefault().getPathMatcher("glob:" + name);
+            result.addAll(workingFiles(CWD.toPath(), matcher));
+        }
+        if (result.isEmpty()) {
+            printErrorMessage("File does not exist.");
+        }
+        return result;
+    }
 
+    // names of the files under DIR, relative to CWD, that MATCHER accepts (all if null)
+    private List<String> workingFiles(Path dir, PathMatcher matcher) {
+        List<String> result = new ArrayList<>();
+        try {
+            Files.walkFileTree(dir, new SimpleFileVisitor<Path>() {
+                @Override
+                public FileVisitResult preVisitDirectory(Path d, BasicFileAttributes attrs) {
+                    if (d.normalize().equals(GITLET_DIR.toPath())) {
+                        return FileVisitResult.SKIP_SUBTREE;
+                    }
+                    return FileVisitResult.CONTINUE;
+                }
 
-        /** if file and its contents the same in current commit, remove from staging area
-         * if commit does not have or diff version, add to staging area
-         */
-        if (curr.getBlob(name) != null && curr.getBlob(name).getText().equals(text)) {
-            stage.remove(b);
-        } else {
-            stage.addNew(b);
+                @Override
+                public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) {
+                    Path rel = CWD.toPath().relativize(file);
+                    if (attrs.isRegularFile() && (matcher == null || matcher.matches(rel))) {
+                        result.add(relativeName(file));
+                    }
+                    return FileVisitResult.CONTINUE;
+                }
+            });
+        } catch (IOException excp) {
+            throw new IllegalArgumentException(excp.getMessage());
         }
-        stage.saveStage();
+        return result;
+    }
+
+    // the name gitlet tracks FILE under: its path from CWD with / separators
+    private static String relativeName(Path file) {
+        return CWD.toPath().relativize(file.toAbsolutePath().normalize())
+                .toString().replace(File.separatorChar, '/');
     }
 
     // read from my computer the head commit object and the staging area
@@ -147,11 +280,16 @@ public class Repository {
     // write back any new objects made or any modified objects read earlier
     // want to make a new commit object, normal runtime
     public void commit(String msg) {
+        commit(msg, null);
+    }
+
+    // a commit that, if MERGEPARENT is not null, merges that commit into the head
+    private void commit(String msg, String mergeParent) {
         if (msg.equals("")) {
             printErrorMessage("Please enter a commit message.");
         }
         Commit oldCommit = Commit.fromFile(findHeadID());
-        Commit newCommit = new Commit(msg, oldCommit.getID(), oldCommit.getBlobs());
+        Commit newCommit = new Commit(msg, oldCommit, mergeParent);
         StagingArea stage = StagingArea.fromFile();
 
         if (stage.getStageAddition().isEmpty() && stage.getStageRemoval().isEmpty()) {
@@ -159,16 +297,19 @@ public class Repository {
         }
 
         for (String key : stage.getStageAddition().keySet()) {
-            Blob b = stage.getStageAddition().get(key);
-            newCommit.removeBlob(b.getName());
-            newCommit.putBlob(b);
+            newCommit.putBlob(key, stage.getStageAddition().get(key));
         }
+        StatCache cache = StatCache.fromFile();
         for (String key: stage.getStageRemoval().keySet()) {
             newCommit.removeBlob(key);
+            cache.remove(key);
         }
+        cache.saveCache();
         stage.clearStages();
 
         newCommit.saveCommit();
+        CommitGraph.append(newCommit);
+        CommitIndex.append(newCommit);
         stage.saveStage();
 
         updateHead(newCommit.getID());
@@ -195,16 +336,268 @@ public class Repository {
     }
 
     // maybe us formatter
-    public void log() {
-        File head = join(BRANCHES, readContentsAsString(HEAD));
-        String commitID = readContentsAsString(head);
-        while (commitID != null) {
-            Commit com = Commit.fromFile(commitID);
-            System.out.println("===");
-            System.out.println("commit " + com.getID());
-            System.out.println("Date: " + com.getDate());
-            System.out.println(com.getMessage() + "\n");
-            commitID = com.getParent();
+    /** Prints the first-parent history of HEAD, newest first, narrowed by
+     * OPTIONS: -n N (or -N) for at most N commits, --since=DATE and
+     * --until=DATE for the commits made in that range, --grep=TEXT for the
+     * ones whose message contains TEXT, and --oneline for a short line each.
+     * DATE is yyyy-MM-dd, yyyy-MM-dd HH:mm:ss or as log prints it.
+     * After --, the paths (files or directories) whose changes to show;
+     * with --follow and a single file, the history goes on under the
+     * file's old name past a commit that renamed it.
+     * The commit-graph supplies the history and its dates, so commits are
+     * only read for the ones printed, and the walk stops once N are printed
+     * or it reaches a commit older than SINCE. With paths, the graph's path
+     * filters rule out nearly every commit that did not touch them, and
+     * only the rest are diffed against their parents to make sure. */
+    public void log(String... options) {
+        int max = Integer.MAX_VALUE;
+        long from = Long.MIN_VALUE;
+        long to = Long.MAX_VALUE;
+        String text = null;
+        boolean oneline = false;
+        boolean follow = false;
+        List<String> paths = new ArrayList<>();
+        for (int i = 0; i < options.length; i++) {
+            String o = options[i];
+            if (o.equals("--")) {
+                for (i++; i < options.length; i++) {
+                    paths.add(normalizePath(options[i]));
+                }
+            } else if (o.equals("-n") && i + 1 < options.length) {
+                max = parseCount(options[++i]);
+            } else if (o.matches("-[0-9]+")) {
+                max = parseCount(o.substring(1));
+            } else if (o.startsWith("--since=")) {
+                from = parseDate(o.substring("--since=".length()));
+            } else if (o.startsWith("--until=")) {
+                to = parseDate(o.substring("--until=".length()));
+            } else if (o.startsWith("--grep=")) {
+                text = o.substring("--grep=".length());
+            } else if (o.equals("--oneline")) {
+                oneline = true;
+            } else if (o.equals("--follow")) {
+                follow = true;
+            } else {
+                printErrorMessage("Incorrect operands.");
+            }
+        }
+        if (follow && paths.size() != 1) {
+            printErrorMessage("Incorrect operands.");
+        }
+
+        int limit = max;
+        long since = from;
+        long until = to;
+        String grep = text;
+        boolean brief = oneline;
+        boolean following = follow;
+        PrintWriter out = new PrintWriter(new BufferedWriter(
+                new OutputStreamWriter(System.out, StandardCharsets.UTF_8), 1 << 16));
+        int[] shown = {0};
+        CommitGraph.load().walk(findHeadID(), paths, (id, time) -> {
+            if (shown[0] >= limit || time < since) {
+                return false; // commits are made in date order, so the rest are older
+            }
+            if (time > until) {
+                return true;
+            }
+            Commit com = Commit.fromFile(id);
+            if (!paths.isEmpty() && !touches(com, paths)) {
+                return true; // a false positive of the filter
+            }
+            if (following && com.getParent() != null && com.getBlobID(paths.get(0)) != null
+                    && Commit.fromFile(com.getParent()).getBlobID(paths.get(0)) == null) {
+                String old = renamedFrom(com, paths.get(0));
+                if (old != null) {
+                    paths.set(0, old); // the walk filters on the old name from here on
+                }
+            }
+            if (grep != null && !com.getMessage().contains(grep)) {
+                return true;
+            }
+            if (brief) {
+                out.println(id.substring(0, 7) + " " + com.getMessage());
+            } else {
+                out.println("===");
+                out.println("commit " + id);
+                out.println("Date: " + com.getDate());
+                out.println(com.getMessage() + "\n");
+            }
+            shown[0]++;
+            return true;
+        });
+        out.flush();
+    }
+
+    // true if commit COM changed one of PATHS, or a file under one, from its first parent
+    private static boolean touches(Commit com, List<String> paths) {
+        Commit parent = com.getParent() == null ? null : Commit.fromFile(com.getParent());
+        for (String path : paths) {
+            if (!Objects.equals(com.versionOf(path),
+                    parent == null ? null : parent.versionOf(path))) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // the path that commit COM renamed to PATH, or null if it did not rename one to it
+    private static String renamedFrom(Commit com, String path) {
+        for (Renames.Pair p : Renames.find(Commit.diff(Commit.fromFile(com.getParent()), com))) {
+            if (p.getTo().equals(path)) {
+                return p.getFrom();
+            }
+        }
+        return null;
+    }
+
+    // PATH as commits store it: relative, with / between directories and none at the end
+    private static String normalizePath(String path) {
+        String p = path.replace(File.separatorChar, '/');
+        while (p.startsWith("./")) {
+            p = p.substring(2);
+        }
+        while (p.endsWith("/") && p.length() > 1) {
+            p = p.substring(0, p.length() - 1);
+        }
+        return p;
+    }
+
+    // a commit count given to log, which must be a non-negative number
+    private static int parseCount(String s) {
+        try {
+            int n = Integer.parseInt(s);
+            if (n >= 0) {
+                return n;
+            }
+        } catch (NumberFormatException excp) {
+            // reported below
+        }
+        throw new GitletException("Incorrect operands.");
+    }
+
+    /** Seconds since the epoch for a date given to log, in local time unless
+     * the date says otherwise. */
+    private static long parseDate(String s) {
+        for (String format : new String[] {
+            "yyyy-MM-dd HH:mm:ss", "yyyy-MM-dd", "EEE MMM d HH:mm:ss yyyy Z"}) {
+            SimpleDateFormat f = new SimpleDateFormat(format);
+            f.setLenient(false);
+            ParsePosition pos = new ParsePosition(0);
+            Date d = f.parse(s, pos);
+            if (d != null && pos.getIndex() == s.length()) {
+                return d.getTime() / 1000;
+            }
+        }
+        throw new GitletException("Incorrect operands.");
+    }
+
+    /** Prints, as a unified diff, what changed in the working directory
+     * since HEAD, or since commit C with diff C. With --staged (or
+     * --cached), what is staged since HEAD or C instead; with diff C1 C2,
+     * what changed from commit C1 to C2. The working directory means the
+     * files HEAD and the stage track as they are on disk. Files are only
+     * read where their blob IDs differ, and working files are hashed only if
+     * their stat data changed, so unchanged files cost next to nothing. */
+    public void diff(String... args) {
+        boolean staged = false;
+        List<String> ids = new ArrayList<>();
+        for (String a : args) {
+            if (a.equals("--staged") || a.equals("--cached")) {
+                staged = true;
+            } else if (a.startsWith("-") || ids.size() == 2) {
+                printErrorMessage("Incorrect operands.");
+            } else {
+                ids.add(resolveCommitID(a));
+            }
+        }
+        if (staged && ids.size() > 1) {
+            printErrorMessage("Incorrect operands.");
+        }
+
+        PrintWriter out = new PrintWriter(new BufferedWriter(
+                new OutputStreamWriter(System.out, StandardCharsets.UTF_8), 1 << 16));
+        if (ids.size() == 2) {
+            Commit base = Commit.fromFile(ids.get(0));
+            Commit target = Commit.fromFile(ids.get(1));
+            writeDiff(out, Commit.diff(base, target), base,
+                    path -> blobBytes(target.getBlobID(path)));
+            out.flush();
+            return;
+        }
+
+        // what HEAD and the stage track, then either as staged or as on disk
+        StagingArea stage = StagingArea.fromFile();
+        TreeMap<String, String> tracked =
+            new TreeMap<>(Commit.fromFile(findHeadID()).getBlobs());
+        tracked.putAll(stage.getStageAddition());
+        tracked.keySet().removeAll(stage.getStageRemoval().keySet());
+        TreeMap<String, String> to = tracked;
+        if (!staged) {
+            StatCache cache = StatCache.fromFile();
+            to = new TreeMap<>();
+            for (String name : tracked.keySet()) {
+                String hash = cache.hash(name);
+                if (hash != null) {
+                    to.put(name, hash);
+                }
+            }
+            cache.saveCache();
+        }
+        Commit base = Commit.fromFile(ids.isEmpty() ? findHeadID() : ids.get(0));
+        TreeMap<String, String> from = base.getBlobs();
+        TreeSet<String> names = new TreeSet<>(from.keySet());
+        names.addAll(to.keySet());
+        List<Tree.Change> changes = new ArrayList<>();
+        for (String name : names) {
+            if (!Objects.equals(from.get(name), to.get(name))) {
+                changes.add(new Tree.Change(name, from.get(name), to.get(name)));
+            }
+        }
+        TreeMap<String, String> after = to;
+        writeDiff(out, changes, base, staged ? path -> blobBytes(after.get(path))
+                : path -> readContents(join(CWD, path)));
+        out.flush();
+    }
+
+    /** Prints CHANGES from commit BASE as a unified diff, reading the new
+     *  version of a file with NEW_CONTENTS. A file added where another was
+     *  deleted or kept is shown as renamed or copied if Renames pairs them. */
+    private void writeDiff(PrintWriter out, List<Tree.Change> changes, Commit base,
+                           Function<String, byte[]> newContents) {
+        TreeMap<String, String> deleted = new TreeMap<>();
+        TreeMap<String, String> added = new TreeMap<>();
+        for (Tree.Change ch : changes) {
+            if (ch.getAfter() == null) {
+                deleted.put(ch.getPath(), ch.getBefore());
+            } else if (ch.getBefore() == null) {
+                added.put(ch.getPath(), ch.getAfter());
+            }
+        }
+        Map<String, String> kept = Collections.emptyMap();
+        if (!added.isEmpty()) {
+            kept = new TreeMap<>(base.getBlobs());
+            kept.keySet().removeAll(deleted.keySet());
+        }
+        HashMap<String, Renames.Pair> pairs = new HashMap<>();
+        HashSet<String> moved = new HashSet<>();
+        for (Renames.Pair p : Renames.find(deleted, added, kept,
+                path -> blobBytes(deleted.get(path)), newContents)) {
+            pairs.put(p.getTo(), p);
+            if (!p.isCopy()) {
+                moved.add(p.getFrom());
+            }
+        }
+        for (Tree.Change ch : changes) {
+            String path = ch.getPath();
+            Renames.Pair p = pairs.get(path);
+            if (p != null) {
+                Diff.write(out, p, blobBytes(base.getBlobID(p.getFrom())),
+                        newContents.apply(path));
+            } else if (!moved.contains(path)) {
+                Diff.write(out, path, blobOrNull(ch.getBefore()),
+                        ch.getAfter() == null ? null : newContents.apply(path));
+            }
         }
     }
 
@@ -215,64 +608,43 @@ public class Repository {
             printErrorMessage("File does not exist in that commit.");
         }
         Commit headCommit = Commit.fromFile(findHeadID());
-        if (headCommit.getBlob(name) != null) {
-            writeContents(f, headCommit.getBlob(name).getText());
+        String id = headCommit.getBlobID(name);
+        if (id != null) {
+            WorkingTree.update(Collections.singletonMap(name, id), Collections.emptyList());
+            StatCache cache = StatCache.fromFile();
+            cache.record(name, id);
+            cache.saveCache();
         }
     }
 
     public void checkoutCommit(String commitID, String name) {
-        commitID = updateShortenedID(commitID);
-        if (!checkIfCommitExists(commitID)) {
-            printErrorMessage("No commit with that id exists.");
-        }
+        commitID = resolveCommitID(commitID);
         Commit com = Commit.fromFile(commitID);
-        File f = join(CWD, name);
         if (!com.getBlobs().containsKey(name)) {
             printErrorMessage("File does not exist in that commit.");
         } else if (com == null) {
             printErrorMessage("No commit with that id exists.");
         } else {
-            if (!f.exists()) {
-                try {
-                    f.createNewFile();
-                } catch (IOException excp) {
-                    throw new IllegalArgumentException(excp.getMessage());
-                }
-            }
-            writeContents(f, com.getBlob(name).getText());
+            String id = com.getBlobID(name);
+            WorkingTree.update(Collections.singletonMap(name, id), Collections.emptyList());
+            StatCache cache = StatCache.fromFile();
+            cache.record(name, id);
+            cache.saveCache();
         }
     }
 
-    private boolean checkIfCommitExists(String id) {
-        File[] commits = COMMIT_FOLDER.listFiles();
-        for (int i = 0; i < commits.length; i++) {
-            if (commits[i].getName().equals(id)) {
-                return true;
-            }
-        }
-        return false;
-    }
-    private void deleteOtherFiles(ArrayList<String> trackedFiles) {
-        TrackedFiles currFiles = TrackedFiles.fromFile();
-        Iterator<String> iter = currFiles.gettFiles().iterator();
-        while (iter.hasNext()) {
-            if (!trackedFiles.contains(iter.next())) {
-                currFiles.removeFile(iter.next());
-            }
-        }
-    }
-
-    private String updateShortenedID(String id) {
-        if (id.length() < 10) {
-            File[] files = COMMIT_FOLDER.listFiles();
-            for (int i = 0; i < files.length; i++) {
-                String temp = files[i].getName();
-                if (temp.substring(0, id.length()).equals(id)) {
-                    return temp;
-                }
-            }
+    /** Full ID of the one commit whose ID starts with ID. Loose commits are
+     * only looked for in their fan-out directory and packed ones by binary
+     * search, so this never scans the whole repository. */
+    private String resolveCommitID(String id) {
+        List<String> matches = Commit.withPrefix(id);
+        if (matches.isEmpty()) {
+            printErrorMessage("No commit with that id exists.");
+        } else if (matches.size() > 1) {
+            printErrorMessage("Commit id " + id + " is ambiguous; it matches "
+                    + matches.size() + " commits.");
         }
-        return id;
+        return matches.get(0);
     }
 
 
@@ -290,21 +662,34 @@ public class Repository {
 
         Commit curr = Commit.fromFile(headID);
         Commit given = Commit.fromFile(readContentsAsString(b));
-        lookForUntracked(curr, given);
-
-        compareTrackedBtwnBranches(curr, given);
-
-        for (String key : given.getBlobs().keySet()) {
-            File f = join(CWD, key);
-            if (!f.exists()) {
-                try {
-                    f.createNewFile();
-                } catch (IOException excp) {
-                    throw new IllegalArgumentException(excp.getMessage());
-                }
+        List<Tree.Change> changes = Commit.diff(curr, given);
+        lookForUntracked(curr, changes);
+
+        // only files that differ between the commits are deleted or written
+        StatCache cache = StatCache.fromFile();
+        TreeMap<String, String> writes = new TreeMap<>();
+        List<String> deletes = new ArrayList<>();
+        for (Tree.Change ch : changes) {
+            if (ch.getAfter() == null) {
+                deletes.add(ch.getPath());
+            } else {
+                writes.put(ch.getPath(), ch.getAfter());
+            }
+        }
+        // files both commits share are left alone unless changed in the working directory
+        for (Map.Entry<String, String> e : given.getBlobs().entrySet()) {
+            if (!writes.containsKey(e.getKey()) && !e.getValue().equals(cache.hash(e.getKey()))) {
+                writes.put(e.getKey(), e.getValue());
             }
-            writeContents(f, given.getBlobs().get(key).getText());
         }
+        WorkingTree.update(writes, deletes);
+        for (String path : deletes) {
+            cache.remove(path);
+        }
+        for (Map.Entry<String, String> e : writes.entrySet()) {
+            cache.record(e.getKey(), e.getValue());
+        }
+        cache.saveCache();
         StagingArea stage = StagingArea.fromFile();
         stage.clearStages();
         stage.saveStage();
@@ -316,16 +701,6 @@ public class Repository {
         }
     }
 
-    private void compareTrackedBtwnBranches(Commit curr, Commit givenCom) {
-        TreeMap<String, Blob> temp = curr.getBlobs();
-        for (String key : temp.keySet()) {
-            File f = join(CWD, key);
-            if (f.exists()) {
-                f.delete();
-            }
-        }
-    }
-
     /** private void checkIfUntracked(Commit curr) {
      TreeMap<String, Blob> headBlobs = curr.getBlobs();
      TrackedFiles inCWD = TrackedFiles.fromFile();
@@ -335,24 +710,62 @@ public class Repository {
      }
      */
     /** @Source: geeks for geeks - google search :D */
+    // streams the commit metadata log; no commit objects are opened
     public void globalLog() {
-        File[] f = COMMIT_FOLDER.listFiles();
-        for (int i = 0; i < f.length; i++) {
-            Commit c = Commit.fromFile(f[i].getName());
+        CommitIndex.scan(c -> {
             System.out.println("===");
             System.out.println("commit " + c.getID());
             System.out.println("Date: " + c.getDate());
             System.out.println(c.getMessage() + "\n");
-        }
+        });
     }
 
-    public void find(String file) {
-        Boolean found = false;
-        File[] files = COMMIT_FOLDER.listFiles();
-        for (int i = 0; i < files.length; i++) {
-            Commit com = Commit.fromFile(files[i].getName());
-            if (com.matchWithMessage(file)) {
-                System.out.println(com.getID());
+    /** Prints the IDs of the commits whose message is exactly MSG. */
+    public void find(String msg) {
+        find(msg, "");
+    }
+
+    /** Prints the IDs of the commits whose message matches QUERY. MODE is
+     * "" for an exact match, "--word" for messages containing every word of
+     * QUERY (ignoring case), or "--grep" for messages containing QUERY as a
+     * substring. Candidates come from the message index and are checked
+     * against the metadata log, so no commit objects are read. */
+    public void find(String query, String mode) {
+        List<String> words = MessageIndex.tokenize(query);
+        List<CommitIndex.Entry> candidates = new ArrayList<>();
+        if (words.isEmpty()) {
+            CommitIndex.scan(candidates::add); // nothing to look up
+        } else {
+            TreeSet<Long> offsets;
+            if (mode.equals("--grep")) {
+                String longest = words.get(0);
+                for (String w : words) {
+                    if (w.length() > longest.length()) {
+                        longest = w;
+                    }
+                }
+                offsets = MessageIndex.withWordContaining(longest);
+            } else {
+                offsets = MessageIndex.withAllWords(words);
+            }
+            for (long offset : offsets) {
+                candidates.add(CommitIndex.readAt(offset));
+            }
+        }
+
+        boolean found = false;
+        for (CommitIndex.Entry c : candidates) {
+            String message = c.getMessage();
+            boolean matches;
+            if (mode.equals("--grep")) {
+                matches = message.contains(query);
+            } else if (mode.equals("--word")) {
+                matches = MessageIndex.tokenize(message).containsAll(words);
+            } else {
+                matches = message.equals(query);
+            }
+            if (matches) {
+                System.out.println(c.getID());
                 found = true;
             }
         }
@@ -361,6 +774,119 @@ public class Repository {
         }
     }
 
+    /** Consolidates every loose commit and blob into the compressed pack
+     * in PACK_FOLDER and deletes the loose copies. Commit and blob lookups
+     * fall back to the pack whenever an object is not loose. */
+    public void pack() {
+        PackFile.packObjects();
+    }
+
+    /** Rewrites everything still stored with Java serialization, or in an
+     *  older version of the binary format, in the current one. Commits
+     *  keep their IDs, so branches and history are untouched, and get a
+     *  tree for their files; packed ones are written out loose and packed
+     *  again. The first version of gitlet kept each commit in a file of
+     *  COMMIT_FOLDER itself, with the text of its files inside it; those
+     *  files are stored as blobs and the commit moved to its subfolder. */
+    public void migrate() {
+        int count = 0;
+        for (String name : plainFilenamesIn(COMMIT_FOLDER)) {
+            File f = join(COMMIT_FOLDER, name);
+            Commit.fromBytes(readContents(f)).writeTo(looseObject(COMMIT_FOLDER, name));
+            f.delete();
+            count++;
+        }
+        for (File f : looseObjects(COMMIT_FOLDER, "")) {
+            byte[] bytes = Utils.readContents(f);
+            if (Commit.isOutdated(bytes)) {
+                Commit.fromBytes(bytes).writeTo(f);
+                count++;
+            }
+        }
+        boolean repack = false;
+        for (String id : PackFile.idsWithPrefix("", PackFile.COMMIT)) {
+            byte[] bytes = PackFile.read(id);
+            if (Commit.isOutdated(bytes)) {
+                File f = looseObject(COMMIT_FOLDER, id);
+                f.getParentFile().mkdirs();
+                Commit.fromBytes(bytes).writeTo(f);
+                repack = true;
+                count++;
+            }
+        }
+        if (repack) {
+            PackFile.packObjects();
+        }
+        StagingArea.fromFile().saveStage();
+        TrackedFiles.fromFile().saveFiles();
+        StatCache.fromFile().saveCache();
+        System.out.println("Migrated " + count + " commits.");
+    }
+
+    /** True if the repository was last written by the first version of
+     *  gitlet, which Java-serialized its staging area along with everything
+     *  else, so only migrate can read it. */
+    static boolean isOutdated() {
+        byte[] magic = new byte[2];
+        try (InputStream in = new FileInputStream(STAGING_AREA)) {
+            return in.read(magic) == magic.length && ObjectCodec.isLegacy(magic);
+        } catch (IOException excp) {
+            throw new IllegalArgumentException(excp.getMessage());
+        }
+    }
+
+    /** Where a loose object is kept: FOLDER/ab/cdef... for the ID abcdef...,
+     * so no directory holds more than a small share of the objects. */
+    static File looseObject(File folder, String id) {
+        return join(folder, id.substring(0, 2), id.substring(2));
+    }
+
+    /** Stores BYTES as the loose object ID in FOLDER. It is written to a
+     * temporary file in FOLDER and renamed into place, as blobs are, so a
+     * crash never leaves a partial object under a valid ID. */
+    static void writeLooseObject(File folder, String id, byte[] bytes) {
+        File outFile = looseObject(folder, id);
+        outFile.getParentFile().mkdirs();
+        try {
+            File tmp = File.createTempFile("object", ".tmp", folder);
+            try {
+                Files.write(tmp.toPath(), bytes);
+                Files.move(tmp.toPath(), outFile.toPath(), StandardCopyOption.ATOMIC_MOVE);
+            } finally {
+                tmp.delete();
+            }
+        } catch (IOException excp) {
+            throw new IllegalArgumentException(excp.getMessage());
+        }
+    }
+
+    // ID of the loose object stored in F
+    static String looseID(File f) {
+        return f.getParentFile().getName() + f.getName();
+    }
+
+    /** Loose object files under FOLDER whose IDs start with PREFIX. */
+    static List<File> looseObjects(File folder, String prefix) {
+        List<File> result = new ArrayList<>();
+        File[] dirs = folder.listFiles();
+        if (dirs == null) {
+            return result;
+        }
+        String dirPrefix = prefix.substring(0, Math.min(2, prefix.length()));
+        for (File dir : dirs) {
+            if (!dir.isDirectory() || !dir.getName().startsWith(dirPrefix)) {
+                continue;
+            }
+            List<String> names = plainFilenamesIn(dir);
+            for (String n : names) {
+                if ((dir.getName() + n).startsWith(prefix)) {
+                    result.add(join(dir, n));
+                }
+            }
+        }
+        return result;
+    }
+
     // returns ID of the commit of where the head branch is
     private String findHeadID() {
         File activeBranch = join(BRANCHES, readContentsAsString(HEAD));
@@ -368,8 +894,16 @@ public class Repository {
     }
 
     public void status() {
+        status(false);
+    }
+
+    /** Prints the status. With RENAMES, a staged file that Renames pairs
+     *  with a file staged for removal, or that is an exact copy of a tracked
+     *  one, is listed with where it came from; that is left out by default
+     *  so the sections read exactly as they always have. */
+    public void status(boolean renames) {
         StagingArea stage = StagingArea.fromFile();
-        TreeMap<String, Blob> stageAdd = stage.getStageAddition();
+        TreeMap<String, String> stageAdd = stage.getStageAddition();
         TreeMap<String, String> stageRem = stage.getStageRemoval();
 
         System.out.println("=== Branches ===");
@@ -384,9 +918,13 @@ public class Repository {
         }
         System.out.println();
 
+        HashMap<String, Renames.Pair> pairs = new HashMap<>();
+        if (renames) {
+            pairs = stagedRenames(stageAdd, stageRem.keySet());
+        }
         System.out.println("=== Staged Files ===");
         for (String name : stageAdd.keySet()) {
-            System.out.println(name);
+            System.out.println(pairs.containsKey(name) ? pairs.get(name).describe() : name);
         }
         System.out.println();
 
@@ -396,13 +934,76 @@ public class Repository {
         }
         System.out.println();
 
+        // working files are only re-read when their stat data has changed
+        Commit head = Commit.fromFile(findHeadID());
+        StatCache cache = StatCache.fromFile();
+        TreeMap<String, String> modified = new TreeMap<>();
+        for (String name : head.getBlobs().keySet()) {
+            if (stageAdd.containsKey(name) || stageRem.containsKey(name)) {
+                continue;
+            }
+            String hash = cache.hash(name);
+            if (hash == null) {
+                modified.put(name, "deleted");
+            } else if (!hash.equals(head.getBlobID(name))) {
+                modified.put(name, "modified");
+            }
+        }
+        for (String name : stageAdd.keySet()) {
+            String hash = cache.hash(name);
+            if (hash == null) {
+                modified.put(name, "deleted");
+            } else if (!hash.equals(stageAdd.get(name))) {
+                modified.put(name, "modified");
+            }
+        }
+        cache.saveCache();
+
         System.out.println("=== Modifications Not Staged For Commit ===");
+        for (String name : modified.keySet()) {
+            System.out.println(name + " (" + modified.get(name) + ")");
+        }
         System.out.println();
 
         System.out.println("=== Untracked Files ===");
+        List<String> working = workingFiles(CWD.toPath(), null); // every directory, as add . sees it
+        Collections.sort(working);
+        for (String name : working) {
+            if (!stageAdd.containsKey(name)
+                    && (!head.getBlobs().containsKey(name) || stageRem.containsKey(name))) {
+                System.out.println(name);
+            }
+        }
         System.out.println();
     }
 
+    // renames and copies among staged files, by the new file's name
+    private HashMap<String, Renames.Pair> stagedRenames(Map<String, String> stageAdd,
+                                                         Collection<String> stageRem) {
+        Commit head = Commit.fromFile(findHeadID());
+        TreeMap<String, String> deleted = new TreeMap<>();
+        for (String name : stageRem) {
+            deleted.put(name, head.getBlobID(name));
+        }
+        TreeMap<String, String> added = new TreeMap<>();
+        for (Map.Entry<String, String> e : stageAdd.entrySet()) {
+            if (head.getBlobID(e.getKey()) == null) {
+                added.put(e.getKey(), e.getValue());
+            }
+        }
+        HashMap<String, Renames.Pair> result = new HashMap<>();
+        if (added.isEmpty()) {
+            return result;
+        }
+        TreeMap<String, String> kept = new TreeMap<>(head.getBlobs());
+        kept.keySet().removeAll(deleted.keySet());
+        for (Renames.Pair p : Renames.find(deleted, added, kept,
+                path -> blobBytes(deleted.get(path)), path -> blobBytes(added.get(path)))) {
+            result.put(p.getTo(), p);
+        }
+        return result;
+    }
+
     public void branch(String name) {
         File b = join(BRANCHES, name);
         if (!b.exists()) {
@@ -442,10 +1043,7 @@ public class Repository {
      * command is essentially checkout of an arbitracy commit that
      *  also changes the current branch head */
     public void reset(String id) {
-        id = updateShortenedID(id);
-        if (!checkIfCommitExists(id)) {
-            printErrorMessage("No commit with that id exists.");
-        }
+        id = resolveCommitID(id);
         File temp = join(BRANCHES, "temp");
         try {
             temp.createNewFile();
@@ -457,10 +1055,11 @@ public class Repository {
         updateHead(id);
     }
 
-    private void lookForUntracked(Commit curr, Commit given) {
-        for (String key : given.getBlobs().keySet()) {
-            File f = join(CWD, key);
-            if (!curr.getBlobs().containsKey(key) && f.exists()) {
+    // errors if CHANGES would write over a file that commit CURR does not track
+    private void lookForUntracked(Commit curr, List<Tree.Change> changes) {
+        for (Tree.Change ch : changes) {
+            if (ch.getAfter() != null && curr.getBlobID(ch.getPath()) == null
+                    && join(CWD, ch.getPath()).exists()) {
                 printErrorMessage("There is an untracked file in the way; "
                         + "delete it, or add and commit it first.");
             }
@@ -485,10 +1084,9 @@ public class Repository {
         String oCommitID = readContentsAsString(oth);
         String cCommitID = readContentsAsString(curr);
 
+        String splitID = lookForSplit(oCommitID, cCommitID);
         Commit oCommit = Commit.fromFile(oCommitID);
         Commit cCommit = Commit.fromFile(cCommitID);
-
-        String splitID = lookForSplit(oCommit, cCommit);
         Commit split = Commit.fromFile(splitID);
 
         /** 1. modified in other but not head (head -> other)
@@ -500,88 +1098,158 @@ public class Repository {
          *  7. unmofidied in other but not present in head -> remain removes
          */
 
-        lookForUntracked(cCommit, oCommit);
+        // only files the other branch changed are touched, so only they can be in the way
+        List<Tree.Change> changes = Commit.diff(split, oCommit);
+        lookForUntracked(cCommit, changes);
 
-        if (checkForConflict(oCommit, cCommit, split)) {
+        if (checkForConflict(split, cCommit, changes)) {
             printErrorMessage("Encountered a merge conflict.");
         } else {
             String msg = "Merged " + readContentsAsString(HEAD) + " with " + other + ".";
-            commit(msg);
+            commit(msg, oCommitID);
         }
     }
 
-    private boolean checkForConflict(Commit curr, Commit other, Commit split) {
-        TreeMap<String, Blob> cBlobs = curr.getBlobs();
-        TreeMap<String, Blob> oBlobs = other.getBlobs();
-        TreeMap<String, Blob> sBlobs = split.getBlobs();
+    /** Applies to the working directory what the given branch changed since
+     *  the split point, reporting whether any of it conflicted. Only the
+     *  files in CHANGES, the tree diff from split to other, are looked at:
+     *  one the current branch left alone takes the other's version, one both
+     *  changed the same way stays, and one both changed differently is merged
+     *  line by line against its split version. A file whose changes do not
+     *  overlap is merged cleanly and staged; otherwise only the conflicting
+     *  regions are marked, and binary files conflict as a whole.
+     *
+     *  A file one branch renamed and the other edited under its old name is
+     *  merged under the new name, so the edits follow the rename. */
+    private boolean checkForConflict(Commit split, Commit curr, List<Tree.Change> changes) {
         boolean result = false;
+        TreeMap<String, String> taken = new TreeMap<>();
+        List<String> removed = new ArrayList<>();
+        HashMap<String, Tree.Change> byPath = new HashMap<>();
+        for (Tree.Change ch : changes) {
+            byPath.put(ch.getPath(), ch);
+        }
 
-        for (String key : oBlobs.keySet()) {
-            String cText = "";
-            String oText = "";
-            String sText = "";
-
-            if (cBlobs.containsKey(key)) {
-                cText = cBlobs.get(key).getText();
-            }
-            if (oBlobs.containsKey(key)) {
-                oText = oBlobs.get(key).getText();
-            }
-            if (sBlobs.containsKey(key)) {
-                sText = sBlobs.get(key).getText();
-            }
-
-            if (!cBlobs.containsKey(key)) {
-                if (!sBlobs.containsKey(key)) {
-                    makeFile(key, oText);
-                    add(key);
-                } else if (!sText.equals(oText)) {
-                    result = true;
-                    makeFile(key, mergeHelper(cText, oText));
-                }
-            } else if (cBlobs.containsKey(key) && sBlobs.containsKey(key) && sText.equals(cText)) {
-                makeFile(key, oText);
-                add(key);
+        HashSet<String> done = new HashSet<>();
+        for (Renames.Pair p : Renames.find(changes)) {
+            // the given branch renamed it and the current branch edited the old file
+            String cID = curr.getBlobID(p.getFrom());
+            String sID = byPath.get(p.getFrom()).getBefore();
+            if (cID != null && !cID.equals(sID) && curr.getBlobID(p.getTo()) == null) {
+                removed.add(p.getFrom());
+                result |= mergeFile(p.getTo(), sID, cID, byPath.get(p.getTo()).getAfter(), taken);
+                done.add(p.getFrom());
+                done.add(p.getTo());
             }
         }
-        for (String name : cBlobs.keySet()) {
-            String cText = "";
-            if (cBlobs.containsKey(name)) {
-                cText = cBlobs.get(name).getText();
-            }
-            String sText = "";
-            if (sBlobs.containsKey(name)) {
-                sText = sBlobs.get(name).getText();
-            }
-            String oText = "";
-            if (oBlobs.containsKey(name)) {
-                oText = oBlobs.get(name).getText();
+        for (Renames.Pair p : Renames.find(Commit.diff(split, curr))) {
+            // the current branch renamed it and the given branch edited the old file
+            Tree.Change ch = byPath.get(p.getFrom());
+            if (ch != null && ch.getAfter() != null && !byPath.containsKey(p.getTo())) {
+                result |= mergeFile(p.getTo(), ch.getBefore(), curr.getBlobID(p.getTo()),
+                        ch.getAfter(), taken);
+                done.add(p.getFrom());
             }
-            if (sBlobs.containsKey(name) && !oBlobs.containsKey(name)) {
-                if (sText.equals(cText)) {
-                    rm(name);
+        }
+
+        for (Tree.Change ch : changes) {
+            String name = ch.getPath();
+            String sID = ch.getBefore();
+            String oID = ch.getAfter();
+            String cID = curr.getBlobID(name);
+            if (done.contains(name)) {
+                continue;
+            } else if (Objects.equals(cID, sID)) {
+                if (oID == null) {
+                    removed.add(name);
                 } else {
-                    result = true;
-                    makeFile(name, mergeHelper(cText, oText));
-                }
-            } else if (sBlobs.containsKey(name) && oBlobs.containsKey(name)) {
-                if (!sText.equals(oText) && !cText.equals(oText)) {
-                    result = true;
-                    makeFile(name, mergeHelper(cText, oText));
+                    taken.put(name, oID);
                 }
-            } else if (!sBlobs.containsKey(name) && oBlobs.containsKey(name)
-                    && !cText.equals(oText)) {
-                result = true;
-                makeFile(name, mergeHelper(cText, oText));
+            } else if (!Objects.equals(cID, oID)) {
+                result |= mergeFile(name, sID, cID, oID, taken);
             }
         }
+        // a file merged back to the current version is neither written nor staged,
+        // so merging in changes already made adds no commit
+        taken.entrySet().removeIf(e -> e.getValue().equals(curr.getBlobID(e.getKey())));
+        // everything merged cleanly is written together and staged in one go
+        if (!taken.isEmpty() || !removed.isEmpty()) {
+            WorkingTree.update(taken, removed);
+            stageMerged(taken, removed);
+        }
         return result;
     }
 
-    private void makeFile(String name, String contents) {
+    /** Merges file NAME, which both branches changed from blob SID, the
+     *  current one to CID and the given one to OID (either null if deleted),
+     *  and returns whether it conflicted. A conflicted file is written with
+     *  its markers; a clean one is stored and put in TAKEN to be written,
+     *  unless it is what the current branch already has. Binary files get
+     *  no markers: the current version is kept, or the given one is put in
+     *  TAKEN if the current branch deleted the file, and either way it is
+     *  reported as a conflict. */
+    private boolean mergeFile(String name, String sID, String cID, String oID,
+                              Map<String, String> taken) {
+        byte[] cBytes = blobBytes(cID);
+        byte[] oBytes = blobBytes(oID);
+        if (Diff.isBinary(cBytes) || Diff.isBinary(oBytes)) {
+            if (cID == null) {
+                taken.put(name, oID);
+            }
+            System.out.println("Cannot merge binary file " + name + ".");
+            return true;
+        }
+        LineMerge m = LineMerge.merge(blobBytes(sID), cBytes, oBytes);
+        if (m.getConflicts() > 0) {
+            makeFile(name, m.getContents());
+            return true;
+        }
+        taken.put(name, Blob.store(m.getContents()));
+        return false;
+    }
+
+    /** Stages files just written out of their blobs, FILES being path ->
+     *  blob ID, without reading them back to hash them, and stages the
+     *  removal of REMOVED, which are tracked and already deleted. The stage,
+     *  tracked files and stat cache are each read and saved once. */
+    private void stageMerged(Map<String, String> files, List<String> removed) {
+        StagingArea stage = StagingArea.fromFile();
+        TrackedFiles track = TrackedFiles.fromFile();
+        StatCache cache = StatCache.fromFile();
+        track.putFiles(files.keySet());
+        for (Map.Entry<String, String> e : files.entrySet()) {
+            stage.addNew(e.getKey(), e.getValue());
+            cache.record(e.getKey(), e.getValue());
+        }
+        for (String name : removed) {
+            stage.addRemoval(name);
+            cache.remove(name);
+        }
+        track.removeFiles(removed);
+        track.saveFiles();
+        stage.saveStage();
+        cache.saveCache();
+    }
+
+    // contents of the blob with the given ID, or none for a file that is not there
+    private byte[] blobBytes(String blobID) {
+        if (blobID == null) {
+            return new byte[0];
+        }
+        return Blob.fromFile(blobID).getContents();
+    }
+
+    // contents of the blob with the given ID, or null for a file that is not there
+    private byte[] blobOrNull(String blobID) {
+        return blobID == null ? null : blobBytes(blobID);
+    }
+
+    // CONTENTS is a String or a byte array, as for writeContents
+    private void makeFile(String name, Object contents) {
         File f = join(CWD, name);
         if (!f.exists()) {
             try {
+                f.getParentFile().mkdirs(); // files may be in subdirectories
                 f.createNewFile();
             } catch (IOException excp) {
                 throw new IllegalArgumentException(excp.getMessage());
@@ -590,59 +1258,18 @@ public class Repository {
         writeContents(f, contents);
     }
 
-    private String lookForSplit(Commit oCommit, Commit cCommit) {
-        // find split point and even out any uneven branches
-        Commit cTemp1 = Commit.fromFile(cCommit.getID());
-        int currBranchLength = 0;
-        while (cTemp1.getParent() != null) {
-            currBranchLength++;
-            cTemp1 = Commit.fromFile(cTemp1.getParent());
+    // finds the split point from the commit-graph, handling the ancestor and fast-forward cases
+    // first, since those only search the commits newer than the possible ancestor
+    private String lookForSplit(String oCommitID, String cCommitID) {
+        CommitGraph graph = CommitGraph.load();
+        if (graph.isAncestor(oCommitID, cCommitID)) {
+            printErrorMessage("Given branch is an ancestor of the current branch.");
         }
-
-        Commit oTemp1 = Commit.fromFile(oCommit.getID());
-        int oBranchLength = 0;
-        while (oTemp1.getParent() != null) {
-            oBranchLength++;
-            oTemp1 = Commit.fromFile(oTemp1.getParent());
+        if (graph.isAncestor(cCommitID, oCommitID)) {
+            reset(oCommitID); // moves the current branch up to the other branch
+            printErrorMessage("Current branch fast-forwarded.");
         }
-
-        // chops of the uneven branches: oCommit and cCommit
-        if (currBranchLength > oBranchLength) {
-            cTemp1 = Commit.fromFile(cCommit.getID());
-            int diff = currBranchLength - oBranchLength;
-            while (diff != 0) {
-                cTemp1 = Commit.fromFile(cTemp1.getParent());
-                diff--;
-            }
-            cCommit = cTemp1;
-            if (oCommit.getID() == cTemp1.getID()) {
-                printErrorMessage("Given branch is an ancestor of the current branch.");
-            }
-        } else {
-            int diff = oBranchLength - currBranchLength;
-            oTemp1 = Commit.fromFile(oCommit.getID());
-            while (diff != 0) {
-                oTemp1 = Commit.fromFile(oTemp1.getParent());
-                diff--;
-            }
-            oCommit = oTemp1;
-            if (oTemp1.getID() == cCommit.getID()) {
-                checkOutBranch(oCommit.getID(), false); // checks out to the other branch
-                printErrorMessage("Current branch fast-forwarded.");
-            }
-        }
-
-        String cParent = oCommit.getParent();
-        String oParent = cCommit.getParent();
-        while (!cParent.equals(oParent)) {
-            cParent = Commit.fromFile(cParent).getID();
-            oParent = Commit.fromFile(oParent).getID();
-        }
-        return cParent;
-    }
-
-    private String mergeHelper(String curr, String other) {
-        return "<<<<<<< HEAD\n" + curr + "\n=======\n" + other + "\n>>>>>>>\n";
+        return graph.mergeBase(cCommitID, oCommitID);
     }
 
 }
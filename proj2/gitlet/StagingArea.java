@@ -1,19 +1,51 @@
 package gitlet;
 import java.io.File;
+import java.io.IOException;
 import java.io.Serializable;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
 import java.util.TreeMap;
 
-
+/** The files staged for addition and for removal.
+ *
+ *  STAGING_AREA is a journal: a snapshot of both maps, then one record
+ *  appended for each change made since, so staging a file adds a few bytes
+ *  to the end of the file instead of writing every staged file again. A
+ *  record is an op and a path, plus the blob ID for ADD, with the path
+ *  spelled out in full so each append stands on its own. The file is
+ *  rewritten as a bare snapshot when the stages are cleared, as on commit,
+ *  and when the records come to outnumber what they describe. A record cut
+ *  short by a crash is dropped, and the file rewritten on the next save.
+ *
+ *  @author Jenny Nguyen
+ */
 public class StagingArea implements Serializable {
-    // key: file name; value: file's contents/text or blob
-    private TreeMap<String, Blob> stageAddition; //make a new commit in the future
+    // that of the first version, so the staging areas it Java-serialized can still be read
+    private static final long serialVersionUID = 6021373911204403043L;
+
+    // journal records
+    private static final int ADD = 1; // stageAddition.put
+    private static final int UNADD = 2; // stageAddition.remove
+    private static final int REMOVE = 3; // stageRemoval.put
+    private static final int UNREMOVE = 4; // stageRemoval.remove
+    private static final int MIN_COMPACT = 256; // records always allowed before a rewrite
+
+    // key: file name; value: ID of the staged blob in BLOB_FOLDER
+    private TreeMap<String, String> stageAddition; //make a new commit in the future
     private TreeMap<String, String> stageRemoval; //staged files for removal
 
+    private transient ObjectCodec.Writer pending; // records not saved yet
+    private transient int pendingCount;
+    private transient boolean appendable; // the file is a journal ending at journalLength
+    private transient long journalLength;
+    private transient int records; // in the file after the snapshot
+
     public StagingArea() {
         clearStages();
     }
 
-    public TreeMap<String, Blob> getStageAddition() {
+    public TreeMap<String, String> getStageAddition() {
         return stageAddition;
     }
 
@@ -21,31 +53,34 @@ public class StagingArea implements Serializable {
         return stageRemoval;
     }
 
-    // add new blob or version
-    public void addNew(Blob b) {
-        String n = b.getName();
-        Boolean stagedFileName = stageAddition.containsKey(n);
-        Boolean sameFileVersion = b.getText().equals(stageAddition.get(n));
-
-        if (stagedFileName && sameFileVersion) { // if same file then remove from staging
-            stageAddition.remove(n);
+    // add new version of file NAME, whose contents are already in the blob folder
+    public void addNew(String name, String blobID) {
+        if (!blobID.equals(stageAddition.put(name, blobID))) {
+            record(ADD, name).id(blobID);
         }
-        if (!stagedFileName || !sameFileVersion) {
-            stageAddition.put(b.getName(), b);
+    }
+
+    // stages file NAME for removal; the caller untracks and deletes it
+    public void addRemoval(String name) {
+        remove(name);
+        if (!stageRemoval.containsKey(name)) {
+            stageRemoval.put(name, null);
+            record(REMOVE, name);
         }
     }
 
-    // removes blob because exact version already in current version of commit
-    public void remove(Blob b) {
-        String name = b.getName();
+    // removes file NAME because exact version already in current version of commit
+    public void remove(String name) {
         if (stageAddition.containsKey(name)) {
             stageAddition.remove(name);
+            record(UNADD, name);
         }
     }
 
     public boolean checkStageRemoval(String name) {
         if (stageRemoval.containsKey(name)) {
             stageRemoval.remove(name);
+            record(UNREMOVE, name);
             return true;
         }
         return false;
@@ -54,21 +89,37 @@ public class StagingArea implements Serializable {
     public void clearStages() {
         stageAddition = new TreeMap<>();
         stageRemoval = new TreeMap<>();
+        appendable = false; // the next save writes a fresh snapshot
+        pending = null;
+        pendingCount = 0;
+    }
+
+    // starts the record for change OP to file NAME
+    private ObjectCodec.Writer record(int op, String name) {
+        if (pending == null) {
+            pending = new ObjectCodec.Writer();
+        }
+        pendingCount++;
+        return pending.varint(op).string(name);
     }
 
     // HELP
     public void setStageRemoval(String name, Commit curr, Boolean fileExists) {
-        if (curr.getBlob(name) == null && !stageAddition.containsKey(name)) {
+        if (curr.getBlobID(name) == null && !stageAddition.containsKey(name)) {
             Utils.message("No reason to remove the file.");
         }
 
-        if (stageAddition.containsKey(name)) {
-            stageAddition.remove(name);
-        }
-        if (curr.getBlob(name) != null) {
-            stageRemoval.put(name, null);
+        remove(name);
+        if (curr.getBlobID(name) != null) {
+            if (!stageRemoval.containsKey(name)) {
+                stageRemoval.put(name, null);
+                record(REMOVE, name);
+            }
             TrackedFiles tracked = TrackedFiles.fromFile();
             tracked.removeFile(name);
+            StatCache cache = StatCache.fromFile();
+            cache.remove(name);
+            cache.saveCache();
 
             if (fileExists) {
                 File f = Utils.join(Repository.CWD, name);
@@ -79,11 +130,103 @@ public class StagingArea implements Serializable {
 
 
     public static StagingArea fromFile() {
-        return Utils.readObject(Repository.STAGING_AREA, StagingArea.class);
+        byte[] bytes = Utils.readContents(Repository.STAGING_AREA);
+        if (ObjectCodec.isLegacy(bytes)) {
+            StagingArea stage = ObjectCodec.readLegacy(bytes, StagingArea.class);
+            stage.stageAddition = Blob.storeInline(stage.stageAddition); // staged whole Blobs
+            return stage;
+        }
+        boolean journal = bytes.length > 3 && bytes[3] == ObjectCodec.STAGE_JOURNAL;
+        ObjectCodec.Reader in = new ObjectCodec.Reader(bytes,
+                journal ? ObjectCodec.STAGE_JOURNAL : ObjectCodec.STAGE);
+        StagingArea stage = new StagingArea();
+        int n = in.count();
+        for (int i = 0; i < n; i++) {
+            stage.stageAddition.put(in.path(), in.id());
+        }
+        n = in.count();
+        for (int i = 0; i < n; i++) {
+            stage.stageRemoval.put(in.path(), null);
+        }
+        if (journal) {
+            stage.replay(in, bytes.length);
+        }
+        return stage;
+    }
+
+    // applies the records after the snapshot IN has just read, in a file of LENGTH bytes
+    private void replay(ObjectCodec.Reader in, int length) {
+        int end = in.position();
+        try {
+            while (!in.atEnd()) {
+                int op = in.count();
+                String name = in.string();
+                if (op == ADD) {
+                    stageAddition.put(name, in.id());
+                } else if (op == UNADD) {
+                    stageAddition.remove(name);
+                } else if (op == REMOVE) {
+                    stageRemoval.put(name, null);
+                } else if (op == UNREMOVE) {
+                    stageRemoval.remove(name);
+                } else {
+                    break; // not a record: treated like a torn one
+                }
+                end = in.position();
+                records++;
+            }
+        } catch (IndexOutOfBoundsException excp) {
+            // the last record was cut short; every field has a length, so it runs off the end
+        }
+        appendable = end == length;
+        journalLength = length;
     }
 
+    /** Saves the changes made since this was read, appending their records
+     *  and syncing them to disk, or writes the file afresh when that is due. */
     public void saveStage() {
-        Utils.writeObject(Repository.STAGING_AREA, this);
+        boolean compact = records + pendingCount
+                > MIN_COMPACT + 2 * (stageAddition.size() + stageRemoval.size());
+        if (appendable && !compact && Repository.STAGING_AREA.length() == journalLength) {
+            if (pending != null) {
+                byte[] bytes = pending.toByteArray();
+                append(bytes);
+                journalLength += bytes.length;
+                records += pendingCount;
+                pending = null;
+                pendingCount = 0;
+            }
+            return;
+        }
+        ObjectCodec.Writer out = new ObjectCodec.Writer(ObjectCodec.STAGE_JOURNAL);
+        out.varint(stageAddition.size());
+        for (String name : stageAddition.keySet()) {
+            out.path(name).id(stageAddition.get(name));
+        }
+        out.varint(stageRemoval.size());
+        for (String name : stageRemoval.keySet()) {
+            out.path(name);
+        }
+        byte[] bytes = out.toByteArray();
+        Utils.writeContents(Repository.STAGING_AREA, bytes);
+        appendable = true;
+        journalLength = bytes.length;
+        records = 0;
+        pending = null;
+        pendingCount = 0;
+    }
+
+    private static void append(byte[] bytes) {
+        try (FileChannel ch = FileChannel.open(Repository.STAGING_AREA.toPath(),
+                StandardOpenOption.WRITE, StandardOpenOption.APPEND)) {
+            ByteBuffer buf = ByteBuffer.wrap(bytes);
+            while (buf.hasRemaining()) {
+                ch.write(buf);
+            }
+            ch.force(false);
+        } catch (IOException excp) {
+            throw new IllegalArgumentException(excp.getMessage());
+        }
     }
 
     /** fixes the new version of a file
@@ -0,0 +1,162 @@
+package gitlet;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.Serializable;
+import java.nio.file.Files;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.TreeMap;
+
+/** Remembers the size, modification time, inode and blob ID of each file
+ *  the last time it was hashed, so status only reads the files whose stat
+ *  data has changed since.
+ *
+ *  A file modified in the same instant the cache was written could still
+ *  look unchanged, so entries whose mtime is not older than the cache
+ *  itself are always hashed again. The cache's age is taken from its own
+ *  file's mtime, since the file system's clock can run a tick behind
+ *  System.currentTimeMillis, and a file rewritten right after the cache
+ *  could otherwise get an mtime older than the cache.
+ *
+ *  @author Jenny Nguyen
+ */
+public class StatCache implements Serializable {
+    // fixed so caches Java-serialized by older versions can still be read
+    private static final long serialVersionUID = -5774377795336442096L;
+
+    private TreeMap<String, Entry> entries = new TreeMap<>();
+    private long written; // when this cache was last saved, in ms
+    private transient boolean changed;
+
+    private static class Entry implements Serializable {
+        private static final long serialVersionUID = -1540393565145313648L;
+
+        private final long size;
+        private final long mtime;
+        private final long inode;
+        private final String hash;
+
+        Entry(long s, long m, long i, String h) {
+            size = s;
+            mtime = m;
+            inode = i;
+            hash = h;
+        }
+    }
+
+    /** Blob ID of the contents of working file NAME, or null if it does not
+     *  exist. The file is only read if its stat data no longer matches. */
+    public String hash(String name) {
+        File f = Utils.join(Repository.CWD, name);
+        if (!f.isFile()) {
+            return null;
+        }
+        String cached = cachedHash(name);
+        if (cached != null) {
+            return cached;
+        }
+        String hash = Blob.hashFile(f);
+        entries.put(name, stat(f, hash));
+        changed = true;
+        return hash;
+    }
+
+    /** Blob ID recorded for working file NAME if its stat data still
+     *  matches, otherwise null. Never changes the cache, so it may be
+     *  called from several threads at once. */
+    public String cachedHash(String name) {
+        Entry old = entries.get(name);
+        if (old == null || old.mtime >= written) {
+            return null;
+        }
+        Entry stat = stat(Utils.join(Repository.CWD, name), null);
+        if (stat == null || old.size != stat.size || old.mtime != stat.mtime
+                || old.inode != stat.inode) {
+            return null;
+        }
+        return old.hash;
+    }
+
+    /** Notes that working file NAME now holds the blob with the given ID,
+     *  as after add or checkout. */
+    public void record(String name, String blobID) {
+        Entry stat = stat(Utils.join(Repository.CWD, name), blobID);
+        if (stat == null) {
+            remove(name);
+        } else {
+            entries.put(name, stat);
+            changed = true;
+        }
+    }
+
+    public void remove(String name) {
+        if (entries.remove(name) != null) {
+            changed = true;
+        }
+    }
+
+    // stat data of F paired with HASH, or null if F is not a file
+    private static Entry stat(File f, String hash) {
+        try {
+            BasicFileAttributes attrs = Files.readAttributes(f.toPath(),
+                    BasicFileAttributes.class);
+            if (!attrs.isRegularFile()) {
+                return null;
+            }
+            return new Entry(attrs.size(), attrs.lastModifiedTime().toMillis(),
+                    inode(f), hash);
+        } catch (IOException excp) {
+            return null;
+        }
+    }
+
+    private static long inode(File f) {
+        try {
+            return ((Number) Files.getAttribute(f.toPath(), "unix:ino")).longValue();
+        } catch (UnsupportedOperationException | IllegalArgumentException
+                 | IOException excp) {
+            return 0; // no inode numbers on this platform
+        }
+    }
+
+    public static StatCache fromFile() {
+        if (!Repository.STAT_CACHE.exists()) {
+            return new StatCache();
+        }
+        byte[] bytes = Utils.readContents(Repository.STAT_CACHE);
+        if (ObjectCodec.isLegacy(bytes)) {
+            StatCache cache = ObjectCodec.readLegacy(bytes, StatCache.class);
+            cache.changed = true; // so the next save rewrites it in the new format
+            return cache;
+        }
+        ObjectCodec.Reader in = new ObjectCodec.Reader(bytes, ObjectCodec.STAT_CACHE);
+        StatCache cache = new StatCache();
+        cache.written = Math.min(in.varint(), Repository.STAT_CACHE.lastModified());
+        int n = in.count();
+        for (int i = 0; i < n; i++) {
+            String name = in.path();
+            cache.entries.put(name, new Entry(in.varint(), in.varint(), in.varint(), in.id()));
+        }
+        return cache;
+    }
+
+    // saves the cache, but only if an entry was added, changed or removed
+    public void saveCache() {
+        if (changed) {
+            written = System.currentTimeMillis();
+            writeCache();
+            written = Math.min(written, Repository.STAT_CACHE.lastModified());
+            changed = false;
+        }
+    }
+
+    private void writeCache() {
+        ObjectCodec.Writer out = new ObjectCodec.Writer(ObjectCodec.STAT_CACHE);
+        out.varint(written).varint(entries.size());
+        for (String name : entries.keySet()) {
+            Entry e = entries.get(name);
+            out.path(name).varint(e.size).varint(e.mtime).varint(e.inode).id(e.hash);
+        }
+        Utils.writeContents(Repository.STAT_CACHE, out.toByteArray());
+    }
+}
@@ -2,9 +2,14 @@ package gitlet;
 
 import java.io.Serializable;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
 
 
 public class TrackedFiles implements Serializable {
+    // that of the first version, so the files it Java-serialized can still be read
+    private static final long serialVersionUID = 2637870167282441139L;
+
     /** Key: name of file
      * Value: file
      */
@@ -34,17 +39,55 @@ public class TrackedFiles implements Serializable {
         this.saveFiles();
     }
 
+    // adds every name in NAMES that is not tracked yet; the caller saves once
+    public void putFiles(Collection<String> names) {
+        HashSet<String> known = new HashSet<>(tFiles);
+        for (String n : names) {
+            if (known.add(n)) {
+                tFiles.add(n);
+            }
+        }
+    }
+
     public void removeFile(String n) {
         tFiles.remove(n);
         this.saveFiles();
     }
 
+    // stops tracking every name in NAMES; the caller saves once
+    public void removeFiles(Collection<String> names) {
+        tFiles.removeAll(new HashSet<>(names));
+    }
+
     public static TrackedFiles fromFile() {
-        return Utils.readObject(Repository.TRACKEDFILES, TrackedFiles.class);
+        byte[] bytes = Utils.readContents(Repository.TRACKEDFILES);
+        if (ObjectCodec.isLegacy(bytes)) {
+            return ObjectCodec.readLegacy(bytes, TrackedFiles.class);
+        }
+        ObjectCodec.Reader in = new ObjectCodec.Reader(bytes, ObjectCodec.TRACKED);
+        TrackedFiles files = new TrackedFiles();
+        int n = in.count();
+        for (int i = 0; i < n; i++) {
+            files.tFiles.add(in.path());
+        }
+        n = in.count();
+        for (int i = 0; i < n; i++) {
+            files.untracked.add(in.path());
+        }
+        return files;
     }
 
     public void saveFiles() {
-        Utils.writeObject(Repository.TRACKEDFILES, this);
+        ObjectCodec.Writer out = new ObjectCodec.Writer(ObjectCodec.TRACKED);
+        out.varint(tFiles.size());
+        for (String n : tFiles) {
+            out.path(n);
+        }
+        out.varint(untracked.size());
+        for (String n : untracked) {
+            out.path(n);
+        }
+        Utils.writeContents(Repository.TRACKEDFILES, out.toByteArray());
     }
 
 }
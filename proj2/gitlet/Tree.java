@@ -0,0 +1,266 @@
+package gitlet;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+/** One directory of a commit's snapshot: each entry is either a file,
+ *  pointing at a blob, or a subdirectory, pointing at another Tree. A tree
+ *  is stored under the SHA-1 of its encoding, so a directory that did not
+ *  change between two commits is the very same object, shared by both, and
+ *  two snapshots can be compared without looking inside any directory whose
+ *  ID matches.
+ *
+ *  @author Jenny Nguyen
+ */
+class Tree {
+    static final int FILE = 0;
+    static final int DIR = 1;
+
+    /** Trees already read or written by this process. */
+    private static final ObjectCache<Tree> LOADED =
+        new ObjectCache<>("trees", 32L << 20, t -> 64 + 128L * t.entries.size());
+
+    private static final Tree EMPTY = new Tree(new TreeMap<>());
+
+    private final TreeMap<String, Entry> entries; // name within this directory -> entry
+
+    private static class Entry {
+        private final int type;
+        private final String id;
+
+        Entry(int t, String i) {
+            type = t;
+            id = i;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof Entry && ((Entry) o).type == type && ((Entry) o).id.equals(id);
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * type + id.hashCode();
+        }
+    }
+
+    /** A file whose blob differs between two snapshots. BEFORE or AFTER is
+     *  null on the side where the file does not exist. */
+    static class Change {
+        private final String path;
+        private final String before;
+        private final String after;
+
+        Change(String p, String b, String a) {
+            path = p;
+            before = b;
+            after = a;
+        }
+
+        String getPath() {
+            return path;
+        }
+
+        String getBefore() {
+            return before;
+        }
+
+        String getAfter() {
+            return after;
+        }
+    }
+
+    private Tree(TreeMap<String, Entry> e) {
+        entries = e;
+    }
+
+    /** Reads the tree with the given ID, loose or packed. */
+    static Tree fromFile(String id) {
+        Tree t = LOADED.get(id);
+        if (t != null) {
+            return t;
+        }
+        File inFile = Repository.looseObject(Repository.TREE_FOLDER, id);
+        byte[] packed = inFile.exists() ? null : PackFile.read(id);
+        ObjectCodec.Reader in = new ObjectCodec.Reader(
+                packed != null ? packed : Utils.readContents(inFile), ObjectCodec.TREE);
+        TreeMap<String, Entry> entries = new TreeMap<>();
+        int n = in.count();
+        for (int i = 0; i < n; i++) {
+            String name = in.string();
+            int type = in.count();
+            entries.put(name, new Entry(type, in.id()));
+        }
+        t = new Tree(entries);
+        LOADED.put(id, t);
+        return t;
+    }
+
+    // true if the tree with this ID is stored, loose or packed
+    static boolean exists(String id) {
+        return LOADED.contains(id)
+                || Repository.looseObject(Repository.TREE_FOLDER, id).exists()
+                || PackFile.contains(id, PackFile.TREE);
+    }
+
+    /** Stores the trees for a whole snapshot, given as path -> blob ID, and
+     *  returns the ID of the root. Directories already stored are not
+     *  written again. */
+    static String write(Map<String, String> files) {
+        TreeMap<String, Entry> entries = new TreeMap<>();
+        TreeMap<String, TreeMap<String, String>> dirs = new TreeMap<>();
+        for (Map.Entry<String, String> e : files.entrySet()) {
+            String path = e.getKey();
+            int slash = path.indexOf('/');
+            if (slash < 0) {
+                entries.put(path, new Entry(FILE, e.getValue()));
+            } else {
+                dirs.computeIfAbsent(path.substring(0, slash), k -> new TreeMap<>())
+                        .put(path.substring(slash + 1), e.getValue());
+            }
+        }
+        for (Map.Entry<String, TreeMap<String, String>> d : dirs.entrySet()) {
+            entries.put(d.getKey(), new Entry(DIR, write(d.getValue())));
+        }
+        return store(entries);
+    }
+
+    /** Stores the snapshot that differs from the one under ROOT by CHANGES,
+     *  path -> new blob ID or null for a removed file, and returns its root.
+     *  Only the directories on the way to a changed path are written again;
+     *  every other subtree is shared with ROOT. ROOT may be null for an
+     *  empty snapshot. */
+    static String update(String root, Map<String, String> changes) {
+        TreeMap<String, Entry> entries = new TreeMap<>(root == null ? EMPTY.entries
+                : fromFile(root).entries);
+        TreeMap<String, TreeMap<String, String>> dirs = new TreeMap<>();
+        for (Map.Entry<String, String> e : changes.entrySet()) {
+            String path = e.getKey();
+            int slash = path.indexOf('/');
+            if (slash >= 0) {
+                dirs.computeIfAbsent(path.substring(0, slash), k -> new TreeMap<>())
+                        .put(path.substring(slash + 1), e.getValue());
+            } else if (e.getValue() == null) {
+                entries.remove(path);
+            } else {
+                entries.put(path, new Entry(FILE, e.getValue()));
+            }
+        }
+        for (Map.Entry<String, TreeMap<String, String>> d : dirs.entrySet()) {
+            Entry old = entries.get(d.getKey());
+            String sub = update(old != null && old.type == DIR ? old.id : null, d.getValue());
+            if (fromFile(sub).entries.isEmpty()) {
+                entries.remove(d.getKey()); // nothing left in the directory
+            } else {
+                entries.put(d.getKey(), new Entry(DIR, sub));
+            }
+        }
+        return store(entries);
+    }
+
+    /** Every file in the snapshot under ROOT, path -> blob ID. */
+    static TreeMap<String, String> flatten(String root) {
+        TreeMap<String, String> result = new TreeMap<>();
+        flatten(root, "", result);
+        return result;
+    }
+
+    private static void flatten(String id, String prefix, TreeMap<String, String> result) {
+        for (Map.Entry<String, Entry> e : fromFile(id).entries.entrySet()) {
+            Entry entry = e.getValue();
+            if (entry.type == DIR) {
+                flatten(entry.id, prefix + e.getKey() + "/", result);
+            } else {
+                result.put(prefix + e.getKey(), entry.id);
+            }
+        }
+    }
+
+    /** Blob ID of file PATH in the snapshot under ROOT, or null if there is
+     *  no such file. Reads only the directories along PATH. */
+    static String lookup(String root, String path) {
+        Entry file = entry(root, path);
+        return file == null || file.type != FILE ? null : file.id;
+    }
+
+    /** ID of the blob or tree at PATH in the snapshot under ROOT, or null if
+     *  there is nothing there. Reads only the directories along PATH. */
+    static String entryID(String root, String path) {
+        Entry e = entry(root, path);
+        return e == null ? null : e.id;
+    }
+
+    private static Entry entry(String root, String path) {
+        Tree t = fromFile(root);
+        int start = 0;
+        int slash;
+        while ((slash = path.indexOf('/', start)) >= 0) {
+            Entry dir = t.entries.get(path.substring(start, slash));
+            if (dir == null || dir.type != DIR) {
+                return null;
+            }
+            t = fromFile(dir.id);
+            start = slash + 1;
+        }
+        return t.entries.get(path.substring(start));
+    }
+
+    /** Every file that differs between the snapshots under FROM and TO, in
+     *  path order. Subtrees with the same ID are skipped without being read,
+     *  so the work is proportional to what changed. */
+    static List<Change> diff(String from, String to) {
+        List<Change> result = new ArrayList<>();
+        diff(from, to, "", result);
+        return result;
+    }
+
+    private static void diff(String a, String b, String prefix, List<Change> result) {
+        if (Objects.equals(a, b)) {
+            return;
+        }
+        Map<String, Entry> ea = a == null ? Collections.emptyMap() : fromFile(a).entries;
+        Map<String, Entry> eb = b == null ? Collections.emptyMap() : fromFile(b).entries;
+        TreeSet<String> names = new TreeSet<>(ea.keySet());
+        names.addAll(eb.keySet());
+        for (String name : names) {
+            Entry x = ea.get(name);
+            Entry y = eb.get(name);
+            if (Objects.equals(x, y)) {
+                continue;
+            }
+            String path = prefix + name;
+            String xDir = x != null && x.type == DIR ? x.id : null;
+            String yDir = y != null && y.type == DIR ? y.id : null;
+            if (xDir != null || yDir != null) {
+                diff(xDir, yDir, path + "/", result);
+            }
+            String xFile = x != null && x.type == FILE ? x.id : null;
+            String yFile = y != null && y.type == FILE ? y.id : null;
+            if (!Objects.equals(xFile, yFile)) {
+                result.add(new Change(path, xFile, yFile));
+            }
+        }
+    }
+
+    // writes a tree holding ENTRIES unless it is already stored, and returns its ID
+    private static String store(TreeMap<String, Entry> entries) {
+        ObjectCodec.Writer out = new ObjectCodec.Writer(ObjectCodec.TREE);
+        out.varint(entries.size());
+        for (Map.Entry<String, Entry> e : entries.entrySet()) {
+            out.string(e.getKey()).varint(e.getValue().type).id(e.getValue().id);
+        }
+        byte[] bytes = out.toByteArray();
+        String id = Utils.sha1(bytes);
+        if (!exists(id)) {
+            Repository.writeLooseObject(Repository.TREE_FOLDER, id, bytes);
+        }
+        LOADED.put(id, new Tree(entries));
+        return id;
+    }
+}
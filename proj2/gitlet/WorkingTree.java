@@ -0,0 +1,147 @@
+package gitlet;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.IntConsumer;
+
+import static gitlet.Utils.join;
+
+/** Writes files out of commits into the working directory, many at a time.
+ *  Reading a blob (which may mean inflating it and rebuilding a delta chain)
+ *  and writing the file are done by a small pool of threads, so a checkout
+ *  of thousands of files is not one long line of small reads and writes.
+ *
+ *  Every blob is checked to be there before any file is touched, so a
+ *  checkout missing objects changes nothing. Each file is then written
+ *  beside itself under a temporary name and renamed into place, as blobs
+ *  are stored, so a crash or a failed read never leaves one half written.
+ *  Deletions come last, once every write has succeeded, along with any
+ *  directory they leave empty.
+ *
+ *  @author Jenny Nguyen
+ */
+class WorkingTree {
+    private static final int THREADS =
+        Math.max(2, Math.min(16, 2 * Runtime.getRuntime().availableProcessors()));
+    private static final int SERIAL_LIMIT = 4; // no point handing fewer files to the pool
+
+    private static ExecutorService pool;
+
+    /** Writes each file in WRITES, path -> blob ID, and then deletes each
+     *  file in DELETES and each directory that leaves empty. Nothing is
+     *  changed if one of the blobs is missing; if a write fails, the
+     *  deletions are not made and the failure is thrown once the other
+     *  writes have finished. Either way it is a GitletException naming the
+     *  file, so the command reports it like any other error. */
+    static void update(Map<String, String> writes, Collection<String> deletes) {
+        List<String> paths = new ArrayList<>(writes.keySet());
+        PackFile.current(); // opened once here rather than racing in the workers
+        forEach(paths.size(), i -> {
+            String id = writes.get(paths.get(i));
+            if (!Blob.exists(id)) {
+                throw new GitletException("Blob " + id + " of " + paths.get(i)
+                        + " is missing.");
+            }
+        });
+        forEach(paths.size(), i -> write(writes.get(paths.get(i)), paths.get(i)));
+        for (String name : deletes) {
+            File f = join(Repository.CWD, name);
+            f.delete();
+            File dir = f.getParentFile();
+            while (!dir.equals(Repository.CWD) && dir.delete()) { // fails unless left empty
+                dir = dir.getParentFile();
+            }
+        }
+    }
+
+    // writes blob ID to working file NAME through a temporary file in the same
+    // directory, renamed over it once it is complete
+    private static void write(String id, String name) {
+        File f = join(Repository.CWD, name);
+        File dir = f.getParentFile();
+        if (!dir.isDirectory()) {
+            dir.mkdirs(); // files may be in subdirectories
+        }
+        File tmp = join(dir, "." + f.getName() + ".gitlet-tmp");
+        try {
+            Blob.writeTo(id, tmp);
+            Files.move(tmp.toPath(), f.toPath(), StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException | IllegalArgumentException excp) {
+            tmp.delete(); // Blob.writeTo reports its I/O errors as IllegalArgumentException
+            throw new GitletException("Could not write " + name + ": " + excp.getMessage());
+        } catch (RuntimeException excp) {
+            tmp.delete();
+            throw excp;
+        }
+    }
+
+    /** Runs TASK for 0 .. N-1, on the pool when there are enough of them.
+     *  Once one fails, the rest are skipped and the first failure is thrown
+     *  after every running task has finished. Tasks are never interrupted,
+     *  since that would close the pack file's channel under the others. */
+    private static void forEach(int n, IntConsumer task) {
+        if (n <= SERIAL_LIMIT) {
+            for (int i = 0; i < n; i++) {
+                task.accept(i);
+            }
+            return;
+        }
+        AtomicBoolean failed = new AtomicBoolean();
+        List<Future<?>> futures = new ArrayList<>(n);
+        for (int i = 0; i < n; i++) {
+            int k = i;
+            futures.add(pool().submit(() -> {
+                if (failed.get()) {
+                    return;
+                }
+                try {
+                    task.accept(k);
+                } catch (RuntimeException | Error excp) {
+                    failed.set(true);
+                    throw excp;
+                }
+            }));
+        }
+        Throwable failure = null;
+        for (Future<?> f : futures) {
+            try {
+                f.get();
+            } catch (ExecutionException excp) {
+                if (failure == null) {
+                    failure = excp.getCause();
+                }
+            } catch (InterruptedException excp) {
+                Thread.currentThread().interrupt();
+                throw new IllegalArgumentException(excp);
+            }
+        }
+        if (failure instanceof RuntimeException) {
+            throw (RuntimeException) failure;
+        } else if (failure instanceof Error) {
+            throw (Error) failure;
+        }
+    }
+
+    // threads are daemons so a finished command does not wait on an idle pool
+    private static synchronized ExecutorService pool() {
+        if (pool == null) {
+            pool = Executors.newFixedThreadPool(THREADS, r -> {
+                Thread t = new Thread(r, "gitlet-writer");
+                t.setDaemon(true);
+                return t;
+            });
+        }
+        return pool;
+    }
+}
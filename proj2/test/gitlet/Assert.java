@@ -0,0 +1,40 @@
+package gitlet;
+
+import java.util.Arrays;
+import java.util.Objects;
+
+/** The checks tests make, named after JUnit's. Each throws an
+ *  AssertionError describing what went wrong when its check fails.
+ *
+ *  @author Jenny Nguyen
+ */
+class Assert {
+    static void assertTrue(String what, boolean condition) {
+        if (!condition) {
+            throw new AssertionError(what);
+        }
+    }
+
+    static void assertFalse(String what, boolean condition) {
+        assertTrue(what, !condition);
+    }
+
+    static void assertEquals(Object expected, Object actual) {
+        if (!Objects.equals(expected, actual)) {
+            throw new AssertionError("expected <" + expected + "> but was <" + actual + ">");
+        }
+    }
+
+    static void assertEquals(String what, Object expected, Object actual) {
+        if (!Objects.equals(expected, actual)) {
+            throw new AssertionError(what + ": expected <" + expected + "> but was <"
+                    + actual + ">");
+        }
+    }
+
+    static void assertArrayEquals(String what, byte[] expected, byte[] actual) {
+        if (!Arrays.equals(expected, actual)) {
+            throw new AssertionError(what + ": arrays differ");
+        }
+    }
+}
@@ -0,0 +1,54 @@
+package gitlet;
+
+import java.io.File;
+import java.util.Random;
+
+import static gitlet.Assert.assertArrayEquals;
+import static gitlet.Assert.assertEquals;
+
+/** Binary and large file contents surviving a round trip through the
+ *  repository unchanged.
+ *
+ *  @author Jenny Nguyen
+ */
+class BlobTest {
+    private static byte[] random(Random r, int n) {
+        byte[] result = new byte[n];
+        r.nextBytes(result);
+        return result;
+    }
+
+    private static File file(String name) {
+        return Utils.join(Repository.CWD, name);
+    }
+
+    static void testMegabyteRoundTrip() {
+        TestRepo r = new TestRepo();
+        r.run("init");
+        byte[] contents = random(new Random(1), (int) Chunks.MIN_FILE);
+        contents[0] = 0; // binary, whatever the random bytes are
+        Utils.writeContents(file("big.bin"), contents);
+        r.run("add", "big.bin");
+        r.run("commit", "big");
+        r.run("branch", "b");
+        Utils.writeContents(file("big.bin"), "small now\n");
+        r.run("add", "big.bin");
+        r.run("commit", "shrunk");
+
+        r.run("checkout", "b");
+        assertArrayEquals("file on b", contents, Utils.readContents(file("big.bin")));
+        r.run("checkout", "master");
+        assertEquals("small now\n", Utils.readContentsAsString(file("big.bin")));
+    }
+
+    static void testStreamedLooseBlob() {
+        TestRepo r = new TestRepo();
+        r.run("init");
+        // stored whole, as merge results are, and big enough to be streamed back out
+        byte[] contents = random(new Random(2), 300 * 1024);
+        String id = Blob.store(contents);
+        Utils.writeContents(file("out.bin"), "old contents that are replaced\n");
+        Blob.writeTo(id, file("out.bin"));
+        assertArrayEquals("written blob", contents, Utils.readContents(file("out.bin")));
+    }
+}
@@ -0,0 +1,87 @@
+package gitlet;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+import static gitlet.Assert.assertArrayEquals;
+import static gitlet.Assert.assertEquals;
+import static gitlet.Assert.assertTrue;
+
+/** Large files stored as content-defined chunks and written back out.
+ *
+ *  @author Jenny Nguyen
+ */
+class ChunksTest {
+    private static byte[] random(Random r, int n) {
+        byte[] result = new byte[n];
+        r.nextBytes(result);
+        return result;
+    }
+
+    private static File file(String name) {
+        return Utils.join(Repository.CWD, name);
+    }
+
+    static void testStoreAndRestore() {
+        TestRepo r = new TestRepo();
+        r.run("init");
+        byte[] contents = random(new Random(1), 3 << 20);
+        Utils.writeContents(file("big.bin"), contents);
+        r.run("add", "big.bin");
+        r.run("commit", "big");
+
+        String id = Commit.fromFile(TestRepo.head()).getBlobID("big.bin");
+        assertEquals(Blob.hashFile(file("big.bin")), id);
+        assertTrue("stored as chunks", Chunks.exists(id));
+        assertTrue("cut into several chunks", Chunks.read(id).size() > 1);
+
+        Utils.writeContents(file("big.bin"), "overwritten\n");
+        r.run("checkout", "--", "big.bin");
+        assertArrayEquals("restored file", contents, Utils.readContents(file("big.bin")));
+        assertArrayEquals("blob contents", contents, Blob.fromFile(id).getContents());
+    }
+
+    static void testSmallFilesNotChunked() {
+        TestRepo r = new TestRepo();
+        r.run("init");
+        Utils.writeContents(file("small.bin"), random(new Random(2), (int) Chunks.MIN_FILE - 1));
+        r.run("add", "small.bin");
+        r.run("commit", "small");
+        String id = Commit.fromFile(TestRepo.head()).getBlobID("small.bin");
+        assertTrue("stored as one blob", !Chunks.exists(id));
+    }
+
+    static void testBoundariesSurviveInsertion() {
+        TestRepo r = new TestRepo();
+        r.run("init");
+        byte[] before = random(new Random(3), 4 << 20);
+        byte[] inserted = random(new Random(4), 100);
+        byte[] after = new byte[before.length + inserted.length];
+        int at = 2 << 20;
+        System.arraycopy(before, 0, after, 0, at);
+        System.arraycopy(inserted, 0, after, at, inserted.length);
+        System.arraycopy(before, at, after, at + inserted.length, before.length - at);
+
+        Utils.writeContents(file("before.bin"), before);
+        Utils.writeContents(file("after.bin"), after);
+        List<String> oldChunks = Chunks.read(Chunks.storeFile(file("before.bin")));
+        List<String> newChunks = Chunks.read(Chunks.storeFile(file("after.bin")));
+
+        // only the chunk holding the insertion, and perhaps a neighbour, differ
+        Set<String> old = new HashSet<>(oldChunks);
+        List<String> changed = new ArrayList<>();
+        for (String c : newChunks) {
+            if (!old.contains(c)) {
+                changed.add(c);
+            }
+        }
+        assertTrue("changed chunks: " + changed.size() + " of " + newChunks.size(),
+                changed.size() <= 2 && oldChunks.size() > 10);
+        assertEquals(oldChunks.get(0), newChunks.get(0));
+        assertEquals(oldChunks.get(oldChunks.size() - 1), newChunks.get(newChunks.size() - 1));
+    }
+}
@@ -0,0 +1,123 @@
+package gitlet;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import static gitlet.Assert.assertEquals;
+import static gitlet.Assert.assertTrue;
+
+/** Ancestry queries on the commit-graph, through merges and across the
+ *  lookup table.
+ *
+ *  @author Jenny Nguyen
+ */
+class CommitGraphTest {
+    // IDs along the first-parent history of commit ID, newest first
+    private static List<String> history(CommitGraph graph, String id) {
+        List<String> result = new ArrayList<>();
+        graph.walk(id, Collections.emptyList(), (c, time) -> result.add(c));
+        return result;
+    }
+
+    static void testMergeBackFastForwards() {
+        TestRepo r = new TestRepo();
+        r.run("init");
+        r.commit("f.txt", "1\n", "base");
+        r.run("branch", "b");
+        r.commit("f.txt", "2\n", "on master");
+        r.run("checkout", "b");
+        r.commit("g.txt", "g\n", "on b");
+        r.run("checkout", "master");
+        assertEquals("", r.run("merge", "b"));
+        String merged = TestRepo.head();
+        assertEquals(TestRepo.branch("b"), Commit.fromFile(merged).getMergeParent());
+
+        // b is an ancestor of the merge through its second parent
+        r.run("checkout", "b");
+        assertEquals("Current branch fast-forwarded.\n", r.run("merge", "master"));
+        assertEquals(merged, TestRepo.head());
+        r.run("checkout", "master");
+        assertEquals("Given branch is an ancestor of the current branch.\n",
+                r.run("merge", "b"));
+    }
+
+    static void testCrissCrossBase() {
+        TestRepo r = new TestRepo();
+        r.run("init");
+        r.commit("f.txt", "1\n", "base");
+        String base = TestRepo.head();
+        r.run("branch", "b");
+        r.commit("f.txt", "2\n", "m1");
+        String m1 = TestRepo.head();
+        r.run("branch", "m");
+        r.run("checkout", "b");
+        r.commit("g.txt", "g\n", "b1");
+        String b1 = TestRepo.head();
+        r.run("checkout", "master");
+        r.run("merge", "b");
+        r.run("checkout", "b");
+        r.run("merge", "m");
+        r.run("checkout", "master");
+        r.commit("h.txt", "h\n", "m2");
+        r.run("checkout", "b");
+        r.commit("i.txt", "i\n", "b2");
+
+        String found = CommitGraph.load().mergeBase(TestRepo.branch("master"),
+                TestRepo.branch("b"));
+        assertTrue("a best common ancestor, not the original fork " + base,
+                found.equals(m1) || found.equals(b1));
+        assertTrue("m1 is an ancestor of b", CommitGraph.load().isAncestor(m1,
+                TestRepo.branch("b")));
+        assertTrue("b2 is not an ancestor of master", !CommitGraph.load().isAncestor(
+                TestRepo.branch("b"), TestRepo.branch("master")));
+    }
+
+    static void testLookupTable() {
+        TestRepo r = new TestRepo();
+        r.run("init");
+        String first = null;
+        for (int i = 0; i < 600; i++) {
+            r.commit("f.txt", i + "\n", "commit " + i);
+            if (i == 0) {
+                first = TestRepo.head();
+            }
+        }
+        assertTrue("the lookup table was written", Repository.COMMIT_LOOKUP.exists());
+        CommitGraph graph = CommitGraph.load();
+        List<String> history = history(graph, TestRepo.head());
+        assertEquals(601, history.size());
+        for (String id : history) {
+            // every commit is found, by the table or after it
+            assertEquals(id, history(graph, id).get(0));
+        }
+        assertTrue("the first commit is an ancestor", graph.isAncestor(first, TestRepo.head()));
+    }
+
+    static void testMissingCommitRebuildsGraph() {
+        TestRepo r = new TestRepo();
+        r.run("init");
+        r.commit("f.txt", "1\n", "one");
+        r.commit("f.txt", "2\n", "two");
+        String log = r.run("log");
+        // a graph that has lost its records, as after a crash or an old version
+        Utils.writeContents(Repository.COMMIT_GRAPH,
+                new byte[] {0x47, 0x47, 0x52, 0x46, 0, 0, 0, 2});
+        Repository.COMMIT_LOOKUP.delete();
+        assertEquals(log, r.run("log"));
+        r.commit("f.txt", "3\n", "three");
+        assertEquals(4, history(CommitGraph.load(), TestRepo.head()).size());
+    }
+
+    static void testUnknownCommit() {
+        TestRepo r = new TestRepo();
+        r.run("init");
+        try {
+            CommitGraph.load().mergeBase(TestRepo.head(),
+                    "0123456789012345678901234567890123456789");
+            throw new AssertionError("no error for a commit that does not exist");
+        } catch (GitletException excp) {
+            assertEquals("No commit with that id exists.", excp.getMessage());
+        }
+    }
+}
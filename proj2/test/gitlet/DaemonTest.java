@@ -0,0 +1,120 @@
+package gitlet;
+
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+
+import static gitlet.Assert.assertEquals;
+import static gitlet.Assert.assertTrue;
+
+/** Commands sent to a daemon serving the test's repository from another
+ *  thread, the way Client sends them.
+ *
+ *  @author Jenny Nguyen
+ */
+class DaemonTest {
+    private static Thread daemon;
+
+    // starts a daemon for the repository in the working directory
+    private static void start() throws InterruptedException {
+        daemon = new Thread(() -> Daemon.serve(new Repository()));
+        daemon.start();
+        for (int i = 0; i < 500 && !Client.isServing(Daemon.SOCKET); i++) {
+            Thread.sleep(10);
+        }
+        assertTrue("the daemon is listening", Client.isServing(Daemon.SOCKET));
+    }
+
+    // stops the daemon and waits for it to exit
+    private static void stop() throws InterruptedException {
+        assertEquals("", send("daemon", "--stop"));
+        daemon.join(5000);
+        assertTrue("the daemon has exited", !daemon.isAlive());
+        assertTrue("the socket is gone", !Daemon.SOCKET.exists());
+    }
+
+    // what the daemon replies to ARGS
+    private static String send(String... args) {
+        ByteArrayOutputStream reply = new ByteArrayOutputStream();
+        assertTrue("the command reaches the daemon", Client.forward(Daemon.SOCKET, args, reply));
+        return reply.toString(StandardCharsets.UTF_8);
+    }
+
+    static void testRunsCommands() throws InterruptedException {
+        TestRepo r = new TestRepo();
+        r.run("init");
+        start();
+        TestRepo.write("f.txt", "1\n");
+        assertEquals("", send("add", "f.txt"));
+        assertEquals("", send("commit", "one"));
+        assertEquals(TestRepo.head() + "\n", send("find", "one"));
+        assertEquals("No changes added to the commit.\n", send("commit", "two"));
+        assertEquals("No such branch exists.\n", send("checkout", "nowhere"));
+        assertEquals("No command with that name exists.\n", send("frobnicate"));
+        assertEquals("A gitlet daemon is already running.\n", send("daemon"));
+        stop();
+    }
+
+    static void testLogOptions() throws InterruptedException {
+        TestRepo r = new TestRepo();
+        r.run("init");
+        r.commit("f.txt", "1\n", "one");
+        r.commit("f.txt", "2\n", "two");
+        start();
+        String head = TestRepo.head();
+        assertEquals(head.substring(0, 7) + " two\n", send("log", "--oneline", "-n", "1"));
+        assertEquals(r.run("log", "--grep=o"), send("log", "--grep=o"));
+        assertEquals("Incorrect operands.\n", send("log", "--since=soon"));
+        stop();
+    }
+
+    static void testSeesOtherWriters() throws InterruptedException {
+        TestRepo r = new TestRepo();
+        r.run("init");
+        start();
+        // written by this process rather than through the daemon
+        r.commit("f.txt", "1\n", "one");
+        r.run("branch", "b");
+        TestRepo.write("g.txt", "g\n");
+        r.run("add", "g.txt");
+
+        String status = send("status");
+        assertTrue("lists the new branch", status.contains("\nb\n"));
+        assertTrue("lists the staged file", status.contains("=== Staged Files ===\ng.txt\n"));
+        assertEquals(TestRepo.head() + "\n", send("find", "one"));
+        stop();
+    }
+
+    static void testProbeIsSilent() throws InterruptedException {
+        TestRepo r = new TestRepo();
+        r.run("init");
+        PrintStream console = System.out;
+        ByteArrayOutputStream printed = new ByteArrayOutputStream();
+        System.setOut(new PrintStream(printed, true, StandardCharsets.UTF_8));
+        try {
+            start();
+            assertTrue("a probe finds the daemon", Client.isServing(Daemon.SOCKET));
+            assertTrue("status is sent back", send("status").startsWith("=== Branches ==="));
+            stop();
+        } finally {
+            System.setOut(console);
+        }
+        assertEquals("", printed.toString(StandardCharsets.UTF_8));
+    }
+
+    static void testSecondDaemonRefused() throws InterruptedException {
+        TestRepo r = new TestRepo();
+        r.run("init");
+        start();
+        // not through r.run: the first daemon swaps System.out back after the probe
+        String refused = null;
+        try {
+            Daemon.serve(new Repository());
+        } catch (GitletException excp) {
+            refused = excp.getMessage();
+        }
+        assertEquals("A gitlet daemon is already running.", refused);
+        assertTrue("the first daemon keeps its socket", Client.isServing(Daemon.SOCKET));
+        stop();
+    }
+}
@@ -0,0 +1,109 @@
+package gitlet;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Random;
+
+import static gitlet.Assert.assertArrayEquals;
+import static gitlet.Assert.assertTrue;
+
+/** Round trips through Delta.create and Delta.apply.
+ *
+ *  @author Jenny Nguyen
+ */
+class DeltaTest {
+    // the delta from BASE to TARGET, after checking it rebuilds TARGET exactly
+    private static byte[] roundTrip(byte[] base, byte[] target) {
+        byte[] delta = Delta.create(base, target);
+        assertArrayEquals("rebuilt target", target, Delta.apply(base, delta));
+        return delta;
+    }
+
+    private static byte[] bytes(String s) {
+        return s.getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static byte[] random(Random r, int n) {
+        byte[] result = new byte[n];
+        r.nextBytes(result);
+        return result;
+    }
+
+    static void testEmptyBase() {
+        roundTrip(new byte[0], bytes("a file that is all new\n"));
+        roundTrip(new byte[0], new byte[0]);
+    }
+
+    static void testEmptyTarget() {
+        roundTrip(bytes("everything in here was deleted\n"), new byte[0]);
+    }
+
+    static void testIdenticalBase() {
+        byte[] base = random(new Random(1), 10000);
+        byte[] delta = roundTrip(base, base.clone());
+        assertTrue("an unchanged file is one copy, not " + delta.length + " bytes",
+                delta.length < 16);
+    }
+
+    static void testInsertOnly() {
+        Random r = new Random(2);
+        byte[] base = random(r, 4000);
+        byte[] target = random(r, 4000); // nothing in common with the base
+        byte[] delta = roundTrip(base, target);
+        assertTrue("the target is inserted whole", delta.length >= target.length);
+    }
+
+    static void testShortFiles() {
+        // shorter than a block, so nothing can be copied
+        roundTrip(bytes("abc"), bytes("abd"));
+        roundTrip(bytes("same"), bytes("same"));
+        roundTrip(bytes("x"), bytes("a much longer file than its base"));
+    }
+
+    static void testLongCopies() {
+        Random r = new Random(3);
+        byte[] base = random(r, 1 << 20);
+        byte[] target = new byte[base.length + 100];
+        // the base with 100 new bytes in the middle and its first byte changed
+        System.arraycopy(base, 0, target, 0, base.length / 2);
+        System.arraycopy(random(r, 100), 0, target, base.length / 2, 100);
+        System.arraycopy(base, base.length / 2, target, base.length / 2 + 100,
+                base.length - base.length / 2);
+        target[0] ^= 1;
+        byte[] delta = roundTrip(base, target);
+        assertTrue("two long copies and two inserts, not " + delta.length + " bytes",
+                delta.length < 200);
+    }
+
+    static void testRepeatedContent() {
+        byte[] block = bytes("0123456789abcdef");
+        byte[] base = new byte[block.length * 64];
+        for (int i = 0; i < 64; i++) {
+            System.arraycopy(block, 0, base, i * block.length, block.length);
+        }
+        byte[] target = Arrays.copyOf(base, base.length * 2);
+        System.arraycopy(base, 0, target, base.length, base.length);
+        roundTrip(base, target);
+        roundTrip(target, base);
+    }
+
+    static void testRandomEdits() {
+        Random r = new Random(4);
+        for (int k = 0; k < 200; k++) {
+            byte[] base = random(r, r.nextInt(3000));
+            byte[] target = base.clone();
+            for (int e = r.nextInt(5); e > 0 && target.length > 0; e--) {
+                int at = r.nextInt(target.length);
+                int cut = Math.min(target.length - at, r.nextInt(64));
+                byte[] added = random(r, r.nextInt(64));
+                byte[] next = new byte[target.length - cut + added.length];
+                System.arraycopy(target, 0, next, 0, at);
+                System.arraycopy(added, 0, next, at, added.length);
+                System.arraycopy(target, at + cut, next, at + added.length,
+                        target.length - at - cut);
+                target = next;
+            }
+            roundTrip(base, target);
+        }
+    }
+}
@@ -0,0 +1,112 @@
+package gitlet;
+
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Random;
+
+import static gitlet.Assert.assertEquals;
+import static gitlet.Assert.assertTrue;
+
+/** Line diffs: that the edits found are shortest, and how the ends of
+ *  files come out.
+ *
+ *  @author Jenny Nguyen
+ */
+class DiffTest {
+    // length of a longest common subsequence of A and B, the slow and obvious way
+    private static int lcs(int[] a, int[] b) {
+        int[][] best = new int[a.length + 1][b.length + 1];
+        for (int i = a.length - 1; i >= 0; i--) {
+            for (int j = b.length - 1; j >= 0; j--) {
+                best[i][j] = a[i] == b[j] ? best[i + 1][j + 1] + 1
+                        : Math.max(best[i + 1][j], best[i][j + 1]);
+            }
+        }
+        return best[0][0];
+    }
+
+    private static int[] random(Random r, int alphabet) {
+        int[] result = new int[r.nextInt(40)];
+        for (int i = 0; i < result.length; i++) {
+            result[i] = r.nextInt(alphabet);
+        }
+        return result;
+    }
+
+    // the unified diff of file f from BEFORE to AFTER, null meaning no file
+    private static String diff(String before, String after) {
+        StringWriter buf = new StringWriter();
+        try (PrintWriter out = new PrintWriter(buf)) {
+            Diff.write(out, "f", before == null ? null : before.getBytes(StandardCharsets.UTF_8),
+                    after == null ? null : after.getBytes(StandardCharsets.UTF_8));
+        }
+        return buf.toString();
+    }
+
+    static void testShortestEdit() {
+        Random r = new Random(1);
+        for (int k = 0; k < 2000; k++) {
+            int[] a = random(r, 1 + k % 6);
+            int[] b = random(r, 1 + k % 6);
+            int[] kept = Diff.match(a, b);
+            String what = Arrays.toString(a) + " to " + Arrays.toString(b);
+            int matched = 0;
+            int last = -1;
+            for (int i = 0; i < a.length; i++) {
+                if (kept[i] >= 0) {
+                    assertTrue(what + ": kept lines in order", kept[i] > last);
+                    assertEquals(what + ": kept line " + i, a[i], b[kept[i]]);
+                    last = kept[i];
+                    matched++;
+                }
+            }
+            // fewest deletions and insertions is most lines kept
+            assertEquals(what, lcs(a, b), matched);
+        }
+    }
+
+    static void testLines() {
+        assertEquals(0, Diff.lines("").length);
+        assertEquals("[a\n, b\n]", Arrays.toString(Diff.lines("a\nb\n")));
+        assertEquals("[a\n, b]", Arrays.toString(Diff.lines("a\nb")));
+        assertEquals("[\n, \n]", Arrays.toString(Diff.lines("\n\n")));
+    }
+
+    static void testEmptyBefore() {
+        assertEquals("diff --git a/f b/f\n--- a/f\n+++ b/f\n@@ -0,0 +1,2 @@\n+a\n+b\n",
+                diff("", "a\nb\n"));
+        assertEquals("diff --git a/f b/f\nnew file\n--- /dev/null\n+++ b/f\n"
+                + "@@ -0,0 +1 @@\n+a\n", diff(null, "a\n"));
+    }
+
+    static void testEmptyAfter() {
+        assertEquals("diff --git a/f b/f\n--- a/f\n+++ b/f\n@@ -1,2 +0,0 @@\n-a\n-b\n",
+                diff("a\nb\n", ""));
+        assertEquals("diff --git a/f b/f\ndeleted file\n--- a/f\n+++ /dev/null\n"
+                + "@@ -1 +0,0 @@\n-a\n", diff("a\n", null));
+        assertEquals("diff --git a/f b/f\n--- a/f\n+++ b/f\n", diff("", ""));
+    }
+
+    static void testNoTrailingNewline() {
+        assertEquals("diff --git a/f b/f\n--- a/f\n+++ b/f\n@@ -1,2 +1,2 @@\n a\n"
+                + "-b\n\\ No newline at end of file\n+c\n\\ No newline at end of file\n",
+                diff("a\nb", "a\nc"));
+        // only the newline added
+        assertEquals("diff --git a/f b/f\n--- a/f\n+++ b/f\n@@ -1,2 +1,2 @@\n a\n"
+                + "-b\n\\ No newline at end of file\n+b\n", diff("a\nb", "a\nb\n"));
+        assertEquals("diff --git a/f b/f\n--- a/f\n+++ b/f\n@@ -0,0 +1 @@\n"
+                + "+a\n\\ No newline at end of file\n", diff("", "a"));
+    }
+
+    static void testContext() {
+        StringBuilder before = new StringBuilder();
+        for (int i = 1; i <= 20; i++) {
+            before.append(i).append('\n');
+        }
+        String after = before.toString().replace("\n10\n", "\nten\n");
+        assertEquals("diff --git a/f b/f\n--- a/f\n+++ b/f\n@@ -7,7 +7,7 @@\n"
+                + " 7\n 8\n 9\n-10\n+ten\n 11\n 12\n 13\n", diff(before.toString(), after));
+    }
+}
@@ -0,0 +1,100 @@
+package gitlet;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static gitlet.Assert.assertEquals;
+import static gitlet.Assert.assertTrue;
+
+/** find by exact message, by words and by substring, answered from the
+ *  commit metadata log and the word index.
+ *
+ *  @author Jenny Nguyen
+ */
+class FindTest {
+    private static final String NOT_FOUND = "Found no commit with that message.\n";
+
+    static void testFindWord() {
+        TestRepo r = new TestRepo();
+        r.run("init");
+        r.commit("f.txt", "1\n", "Fix the parser");
+        String fix = TestRepo.head();
+        r.commit("f.txt", "2\n", "parser: add tests, then fix");
+        String tests = TestRepo.head();
+        r.commit("f.txt", "3\n", "Fixes elsewhere");
+
+        assertEquals(fix + "\n", r.run("find", "Fix the parser"));
+        assertEquals(NOT_FOUND, r.run("find", "fix the parser"));
+        assertEquals(fix + "\n" + tests + "\n", r.run("find", "--word", "FIX parser"));
+        assertEquals(tests + "\n", r.run("find", "--word", "tests fix"));
+        assertEquals(NOT_FOUND, r.run("find", "--word", "fix lexer"));
+    }
+
+    static void testFindGrep() {
+        TestRepo r = new TestRepo();
+        r.run("init");
+        r.commit("f.txt", "1\n", "Fix the parser");
+        String fix = TestRepo.head();
+        r.commit("f.txt", "2\n", "reparse everything");
+        String reparse = TestRepo.head();
+
+        assertEquals(fix + "\n" + reparse + "\n", r.run("find", "--grep", "pars"));
+        assertEquals(fix + "\n", r.run("find", "--grep", "x the p"));
+        assertEquals(NOT_FOUND, r.run("find", "--grep", "fix the"));
+    }
+
+    static void testLongWords() {
+        TestRepo r = new TestRepo();
+        r.run("init");
+        String word = "a".repeat(300) + "needle" + "b".repeat(300);
+        r.commit("f.txt", "1\n", "long " + word);
+        String id = TestRepo.head();
+        r.commit("f.txt", "2\n", "short needle");
+        String shortID = TestRepo.head();
+
+        assertEquals(id + "\n" + shortID + "\n", r.run("find", "--grep", "needle"));
+        assertEquals(id + "\n", r.run("find", "--grep", "aneedleb"));
+        assertEquals(id + "\n", r.run("find", "--word", word.toUpperCase()));
+        assertEquals(NOT_FOUND, r.run("find", "--word", word + "c"));
+    }
+
+    static void testMergeParentInLog() {
+        TestRepo r = new TestRepo();
+        r.run("init");
+        r.commit("f.txt", "1\n", "base");
+        r.run("branch", "b");
+        r.commit("f.txt", "2\n", "on master");
+        r.run("checkout", "b");
+        r.commit("g.txt", "g\n", "on b");
+        r.run("checkout", "master");
+        r.run("merge", "b");
+
+        List<CommitIndex.Entry> entries = new ArrayList<>();
+        CommitIndex.scan(entries::add);
+        CommitIndex.Entry merge = entries.get(entries.size() - 1);
+        assertEquals(TestRepo.head(), merge.getID());
+        assertEquals(TestRepo.branch("b"), merge.getMergeParent());
+        assertEquals(null, entries.get(entries.size() - 2).getMergeParent());
+        assertEquals(merge.getID(),
+                CommitIndex.readAt(merge.getOffset()).getID());
+    }
+
+    static void testRebuildsOutdatedLog() {
+        TestRepo r = new TestRepo();
+        r.run("init");
+        r.commit("f.txt", "1\n", "first words");
+        String first = TestRepo.head();
+        r.commit("f.txt", "2\n", "second words");
+        String second = TestRepo.head();
+
+        // a log from before the format had a version reads as another one
+        Utils.writeContents(Repository.COMMIT_LOG, new byte[] {0, 0, 0, 40, 1, 2});
+        String found = r.run("find", "--word", "words");
+        assertTrue("finds the first commit", found.contains(first));
+        assertTrue("finds the second commit", found.contains(second));
+        r.commit("f.txt", "3\n", "third words");
+        String output = r.run("global-log");
+        assertTrue("every commit is logged once", output.split("===").length == 5);
+        assertEquals(3, r.run("find", "--word", "words").split("\n").length);
+    }
+}
@@ -0,0 +1,76 @@
+package gitlet;
+
+import java.nio.charset.StandardCharsets;
+
+import static gitlet.Assert.assertEquals;
+
+/** Three-way merges of small files, clean and conflicting.
+ *
+ *  @author Jenny Nguyen
+ */
+class LineMergeTest {
+    // merges CURR and OTHER from BASE, checking how many regions conflicted
+    private static String merge(String base, String curr, String other, int conflicts) {
+        LineMerge m = LineMerge.merge(bytes(base), bytes(curr), bytes(other));
+        String result = new String(m.getContents(), StandardCharsets.UTF_8);
+        assertEquals("conflicts in\n" + result, conflicts, m.getConflicts());
+        return result;
+    }
+
+    private static byte[] bytes(String s) {
+        return s.getBytes(StandardCharsets.UTF_8);
+    }
+
+    static void testDisjointEdits() {
+        String base = "1\n2\n3\n4\n5\n6\n";
+        assertEquals("1\nA\n3\n4\nB\n6\n",
+                merge(base, "1\nA\n3\n4\n5\n6\n", "1\n2\n3\n4\nB\n6\n", 0));
+        // a deletion on one side and an insertion on the other
+        assertEquals("2\n3\n4\n5\nnew\n6\n",
+                merge(base, "2\n3\n4\n5\n6\n", "1\n2\n3\n4\n5\nnew\n6\n", 0));
+    }
+
+    static void testOneSideOnly() {
+        String base = "1\n2\n3\n";
+        assertEquals("1\nA\n3\n", merge(base, "1\nA\n3\n", base, 0));
+        assertEquals("1\nA\n3\n", merge(base, base, "1\nA\n3\n", 0));
+        assertEquals("1\nA\n3\n", merge(base, "1\nA\n3\n", "1\nA\n3\n", 0));
+    }
+
+    static void testOverlappingEdits() {
+        String base = "1\n2\n3\n4\n5\n";
+        assertEquals("1\n<<<<<<< HEAD\nA\n=======\nB\n>>>>>>>\n3\n4\n5\n",
+                merge(base, "1\nA\n3\n4\n5\n", "1\nB\n3\n4\n5\n", 1));
+        // only the overlapping region is marked; the rest merges
+        assertEquals("X\n2\n<<<<<<< HEAD\nA\nA\n=======\nB\n>>>>>>>\n5\n",
+                merge(base, "X\n2\nA\nA\n5\n", "1\n2\nB\n5\n", 1));
+        // both inserting at the same place
+        assertEquals("1\n2\n3\n4\n5\n<<<<<<< HEAD\nA\n=======\nB\n>>>>>>>\n",
+                merge(base, base + "A\n", base + "B\n", 1));
+    }
+
+    static void testAdjacentEdits() {
+        // with no unchanged line between them, edits to neighbouring lines conflict
+        String base = "1\n2\n3\n4\n";
+        assertEquals("1\n<<<<<<< HEAD\nA\n3\n=======\n2\nB\n>>>>>>>\n4\n",
+                merge(base, "1\nA\n3\n4\n", "1\n2\nB\n4\n", 1));
+        // one unchanged line is enough to keep them apart
+        assertEquals("1\nA\n3\nB\n", merge(base, "1\nA\n3\n4\n", "1\n2\n3\nB\n", 0));
+    }
+
+    static void testNoTrailingNewline() {
+        String base = "1\n2\n3";
+        assertEquals("A\n2\nB", merge(base, "A\n2\n3", "1\n2\nB", 0));
+        assertEquals("A\n2\n3\n", merge(base, "1\n2\n3\n", "A\n2\n3", 0));
+        // markers still start on lines of their own
+        assertEquals("1\n2\n<<<<<<< HEAD\nA\n=======\nB\n>>>>>>>\n",
+                merge(base, "1\n2\nA", "1\n2\nB", 1));
+    }
+
+    static void testEmptyFiles() {
+        assertEquals("", merge("", "", "", 0));
+        assertEquals("new\n", merge("", "new\n", "", 0));
+        assertEquals("", merge("gone\n", "", "gone\n", 0));
+        assertEquals("<<<<<<< HEAD\nA\n=======\nB\n>>>>>>>\n", merge("", "A\n", "B\n", 1));
+    }
+}
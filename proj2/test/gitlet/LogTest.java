@@ -0,0 +1,62 @@
+package gitlet;
+
+import static gitlet.Assert.assertEquals;
+
+/** log's limit, date range, message filter and one-line format.
+ *
+ *  @author Jenny Nguyen
+ */
+class LogTest {
+
+    // a repository with commits "one" to "three" on top of the initial commit
+    private static TestRepo threeCommits() {
+        TestRepo r = new TestRepo();
+        r.run("init");
+        r.commit("f.txt", "1\n", "one");
+        r.commit("f.txt", "2\n", "two");
+        r.commit("f.txt", "3\n", "three");
+        return r;
+    }
+
+    // the messages of log --oneline's lines
+    private static String messages(String log) {
+        return log.replaceAll("(?m)^[0-9a-f]{7} ", "");
+    }
+
+    static void testLimit() {
+        TestRepo r = threeCommits();
+        assertEquals("three\ntwo\n", messages(r.run("log", "--oneline", "-n", "2")));
+        assertEquals("three\n", messages(r.run("log", "--oneline", "-1")));
+        assertEquals("three\ntwo\none\ninitial commit\n",
+                messages(r.run("log", "--oneline", "-n", "10")));
+        assertEquals("Incorrect operands.\n", r.run("log", "-n"));
+    }
+
+    static void testDateRange() {
+        TestRepo r = threeCommits();
+        // the initial commit is dated at the epoch, the others now
+        assertEquals("initial commit\n",
+                messages(r.run("log", "--oneline", "--until=2000-01-01")));
+        assertEquals("three\ntwo\none\n",
+                messages(r.run("log", "--oneline", "--since=2000-01-01 00:00:00")));
+        assertEquals("", r.run("log", "--oneline", "--since=9999-01-01"));
+        assertEquals("Incorrect operands.\n", r.run("log", "--since=yesterday"));
+    }
+
+    static void testGrep() {
+        TestRepo r = threeCommits();
+        assertEquals("three\none\n", messages(r.run("log", "--oneline", "--grep=e")));
+        // -n counts the commits shown, not the ones walked past
+        assertEquals("two\n", messages(r.run("log", "--oneline", "--grep=w", "-n", "1")));
+        assertEquals("", r.run("log", "--oneline", "--grep=nothing"));
+    }
+
+    static void testOneline() {
+        TestRepo r = threeCommits();
+        String head = TestRepo.head();
+        assertEquals(head.substring(0, 7) + " three\n", r.run("log", "--oneline", "-1"));
+        String full = r.run("log", "-1");
+        assertEquals("===\ncommit " + head + "\n", full.substring(0, full.indexOf("Date:")));
+        assertEquals(4, r.run("log").split("===\n").length - 1);
+    }
+}
@@ -0,0 +1,129 @@
+package gitlet;
+
+import static gitlet.Assert.assertEquals;
+import static gitlet.Assert.assertTrue;
+
+/** Merges that have nothing left to add, and which side of a merge ends up
+ *  where.
+ *
+ *  @author Jenny Nguyen
+ */
+class MergeTest {
+    static void testRepeatedMerge() {
+        TestRepo r = new TestRepo();
+        r.run("init");
+        r.commit("f.txt", "1\n2\n3\n", "base");
+        r.run("branch", "b");
+        r.commit("f.txt", "1\n2\nC\n", "on master");
+        r.run("checkout", "b");
+        r.commit("f.txt", "A\n2\n3\n", "on b");
+        r.run("checkout", "master");
+        assertEquals("", r.run("merge", "b"));
+        String merged = TestRepo.head();
+        assertEquals("A\n2\nC\n", TestRepo.read("f.txt"));
+
+        assertEquals("Given branch is an ancestor of the current branch.\n",
+                r.run("merge", "b"));
+        assertEquals(merged, TestRepo.head());
+        assertTrue("nothing staged", r.run("status").contains(
+                "=== Staged Files ===\n\n=== Removed Files ===\n\n"));
+    }
+
+    static void testMergeBackToCurrentVersion() {
+        TestRepo r = new TestRepo();
+        r.run("init");
+        r.commit("f.txt", "1\n2\n3\n", "base");
+        r.run("branch", "b");
+        r.commit("f.txt", "A\n2\nC\n", "on master");
+        String head = TestRepo.head();
+        r.run("checkout", "b");
+        // a change master already has, so the line merge gives master's file
+        r.commit("f.txt", "A\n2\n3\n", "on b");
+        r.run("checkout", "master");
+
+        assertEquals("No changes added to the commit.\n", r.run("merge", "b"));
+        assertEquals(head, TestRepo.head());
+        assertEquals("A\n2\nC\n", TestRepo.read("f.txt"));
+        assertTrue("nothing staged", r.run("status").contains(
+                "=== Staged Files ===\n\n=== Removed Files ===\n\n"));
+    }
+
+    static void testOnlyChangedFilesStaged() {
+        TestRepo r = new TestRepo();
+        r.run("init");
+        r.commit("f.txt", "1\n2\n3\n", "base");
+        r.run("branch", "b");
+        r.commit("f.txt", "A\n2\nC\n", "on master");
+        String mine = Commit.fromFile(TestRepo.head()).getBlobID("f.txt");
+        r.run("checkout", "b");
+        r.commit("f.txt", "A\n2\n3\n", "on b");
+        r.commit("g.txt", "g\n", "more on b");
+        r.run("checkout", "master");
+
+        assertEquals("", r.run("merge", "b"));
+        Commit merged = Commit.fromFile(TestRepo.head());
+        assertEquals(TestRepo.branch("b"), merged.getMergeParent());
+        assertEquals(mine, merged.getBlobID("f.txt"));
+        assertEquals("g\n", TestRepo.read("g.txt"));
+    }
+
+    static void testChangeOnlyOnGivenBranch() {
+        TestRepo r = new TestRepo();
+        r.run("init");
+        r.commit("f.txt", "f\n", "base");
+        r.commit("g.txt", "g\n", "base g");
+        r.run("branch", "b");
+        r.commit("g.txt", "master g\n", "on master");
+        r.run("checkout", "b");
+        r.commit("f.txt", "b f\n", "on b");
+        String theirs = Commit.fromFile(TestRepo.head()).getBlobID("f.txt");
+        r.run("checkout", "master");
+
+        // only b changed f.txt, so b's version is taken without a conflict
+        assertEquals("", r.run("merge", "b"));
+        assertEquals("b f\n", TestRepo.read("f.txt"));
+        assertEquals("master g\n", TestRepo.read("g.txt"));
+        assertEquals(theirs, Commit.fromFile(TestRepo.head()).getBlobID("f.txt"));
+    }
+
+    static void testConflictShowsCurrentBranchFirst() {
+        TestRepo r = new TestRepo();
+        r.run("init");
+        r.commit("f.txt", "1\n", "base");
+        r.run("branch", "b");
+        r.commit("f.txt", "master\n", "on master");
+        String head = TestRepo.head();
+        r.run("checkout", "b");
+        r.commit("f.txt", "b\n", "on b");
+        r.run("checkout", "master");
+
+        assertEquals("Encountered a merge conflict.\n", r.run("merge", "b"));
+        assertEquals(head, TestRepo.head());
+        assertEquals("<<<<<<< HEAD\nmaster\n=======\nb\n>>>>>>>\n", TestRepo.read("f.txt"));
+    }
+
+    static void testBinaryConflictKeepsCurrentVersion() {
+        TestRepo r = new TestRepo();
+        r.run("init");
+        r.commit("f.bin", "base\0\n", "base");
+        r.commit("g.bin", "g\0\n", "base g");
+        r.run("branch", "b");
+        r.commit("f.bin", "master\0\n", "on master");
+        r.run("rm", "g.bin");
+        r.run("commit", "no g on master");
+        String head = TestRepo.head();
+        r.run("checkout", "b");
+        r.commit("f.bin", "b\0\n", "on b");
+        r.commit("g.bin", "b g\0\n", "g on b");
+        r.run("checkout", "master");
+
+        assertEquals("Cannot merge binary file f.bin.\nCannot merge binary file g.bin.\n"
+                + "Encountered a merge conflict.\n", r.run("merge", "b"));
+        assertEquals(head, TestRepo.head());
+        // no markers: master's f.bin stays, and b's g.bin is all there is of it
+        assertEquals("master\0\n", TestRepo.read("f.bin"));
+        assertEquals("b g\0\n", TestRepo.read("g.bin"));
+        assertTrue("g.bin is staged",
+                r.run("status").contains("=== Staged Files ===\ng.bin\n\n"));
+    }
+}
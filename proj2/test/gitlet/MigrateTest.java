@@ -0,0 +1,60 @@
+package gitlet;
+
+import static gitlet.Assert.assertEquals;
+import static gitlet.Assert.assertFalse;
+import static gitlet.Assert.assertTrue;
+
+/** Upgrading repositories written by the first version of gitlet.
+ *
+ *  fixtures/baseline was made by that version with: init; add a.txt
+ *  ("a") and b.txt ("b"); commit one; branch other; add a.txt ("a2");
+ *  commit two; rm b.txt; add c.txt ("c"). So master is two, with c.txt
+ *  staged and b.txt staged for removal.
+ *
+ *  @author Jenny Nguyen
+ */
+class MigrateTest {
+    private static final String ONE = "84cc6a40b15a75f71a3da8b9b2484a8d1af9b985";
+    private static final String TWO = "d50e439e6fa495e4b0586b9c44025757f254038d";
+
+    static void testBaselineNeedsMigrate() {
+        TestRepo r = new TestRepo();
+        TestRepo.copyFixture("baseline");
+        String error = "This repository was made by an older gitlet; run migrate first.\n";
+        assertEquals(error, r.run("status"));
+        assertEquals(error, r.run("log"));
+    }
+
+    static void testMigrateBaseline() {
+        TestRepo r = new TestRepo();
+        TestRepo.copyFixture("baseline");
+        assertEquals("Migrated 3 commits.\n", r.run("migrate"));
+        assertEquals(TWO, TestRepo.head());
+
+        String status = r.run("status");
+        assertTrue(status, status.contains("=== Staged Files ===\nc.txt\n\n"));
+        assertTrue(status, status.contains("=== Removed Files ===\nb.txt\n\n"));
+        String log = r.run("log");
+        assertTrue(log, log.startsWith("===\ncommit " + TWO + "\n"));
+        assertTrue(log, log.contains("commit " + ONE + "\n"));
+        assertTrue(log, log.endsWith("initial commit\n\n"));
+        assertEquals("Migrated 0 commits.\n", r.run("migrate"));
+    }
+
+    static void testMigratedFilesCheckOut() {
+        TestRepo r = new TestRepo();
+        TestRepo.copyFixture("baseline");
+        r.run("migrate");
+        assertEquals("", r.run("commit", "three"));
+        assertEquals("a2\n", TestRepo.read("a.txt"));
+
+        r.run("checkout", "other");
+        assertEquals(ONE, TestRepo.head());
+        assertEquals("a\n", TestRepo.read("a.txt"));
+        assertEquals("b\n", TestRepo.read("b.txt"));
+        assertFalse("c.txt is only in three", TestRepo.exists("c.txt"));
+        r.run("checkout", "master");
+        assertEquals("c\n", TestRepo.read("c.txt"));
+        assertFalse("b.txt was removed in three", TestRepo.exists("b.txt"));
+    }
+}
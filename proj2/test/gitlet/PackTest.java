@@ -0,0 +1,85 @@
+package gitlet;
+
+import java.io.File;
+import java.util.List;
+import java.util.Random;
+
+import static gitlet.Assert.assertArrayEquals;
+import static gitlet.Assert.assertEquals;
+import static gitlet.Assert.assertTrue;
+
+/** Everything stays readable once pack has moved it out of the loose
+ *  object folders.
+ *
+ *  @author Jenny Nguyen
+ */
+class PackTest {
+    // true if FOLDER holds no loose objects
+    private static boolean noLoose(File folder) {
+        return Repository.looseObjects(folder, "").isEmpty();
+    }
+
+    // a file of N lines, line K of which reads VERSION
+    private static String file(int n, int k, String version) {
+        StringBuilder result = new StringBuilder();
+        for (int i = 0; i < n; i++) {
+            result.append(i == k ? version : "line " + i).append('\n');
+        }
+        return result.toString();
+    }
+
+    static void testPackRoundTrip() {
+        TestRepo r = new TestRepo();
+        r.run("init");
+        byte[] binary = new byte[5000];
+        new Random(1).nextBytes(binary);
+        Utils.writeContents(Utils.join(Repository.CWD, "bin.dat"), binary);
+        r.run("add", "bin.dat");
+        r.commit("f.txt", file(200, 0, "first"), "one");
+        r.run("branch", "old");
+        for (int i = 1; i < 10; i++) {
+            // each version a small edit of the last, so they pack as deltas
+            r.commit("f.txt", file(200, i * 10, "version " + i), "edit " + i);
+        }
+        r.commit("d/g.txt", "g\n", "last");
+        String log = r.run("log");
+        List<String> commits = Commit.allIDs();
+
+        assertEquals("", r.run("pack"));
+        assertTrue("no loose commits", noLoose(Repository.COMMIT_FOLDER));
+        assertTrue("no loose trees", noLoose(Repository.TREE_FOLDER));
+        assertTrue("no loose blobs", noLoose(Repository.BLOB_FOLDER));
+        assertEquals(commits, Commit.allIDs());
+        for (String id : commits) {
+            assertTrue(id + " packed", PackFile.contains(id, PackFile.COMMIT));
+        }
+
+        Commit.clearCache();
+        assertEquals(log, r.run("log"));
+        assertEquals(file(200, 90, "version 9"), TestRepo.read("f.txt"));
+        r.run("checkout", "old");
+        assertEquals(file(200, 0, "first"), TestRepo.read("f.txt"));
+        assertArrayEquals("bin.dat", binary,
+                Utils.readContents(Utils.join(Repository.CWD, "bin.dat")));
+        assertTrue("d/g.txt is not on old", !TestRepo.exists("d/g.txt"));
+    }
+
+    static void testRepack() {
+        TestRepo r = new TestRepo();
+        r.run("init");
+        r.commit("f.txt", "1\n", "one");
+        r.run("pack");
+        r.commit("f.txt", "2\n", "two");
+        String log = r.run("log");
+        assertTrue("the new commit is loose", !noLoose(Repository.COMMIT_FOLDER));
+
+        r.run("pack");
+        assertTrue("no loose commits", noLoose(Repository.COMMIT_FOLDER));
+        String[] packs = Repository.PACK_FOLDER.list((dir, name) -> name.endsWith(".pack"));
+        assertEquals("one pack left", 1, packs.length);
+        Commit.clearCache();
+        assertEquals(log, r.run("log"));
+        r.run("checkout", Commit.fromFile(TestRepo.head()).getParent(), "--", "f.txt");
+        assertEquals("1\n", TestRepo.read("f.txt"));
+    }
+}
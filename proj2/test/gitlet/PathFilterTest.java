@@ -0,0 +1,107 @@
+package gitlet;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static gitlet.Assert.assertEquals;
+import static gitlet.Assert.assertTrue;
+
+/** Path filters never rule out a path that was changed, and path-limited
+ *  log finds the commits under a directory.
+ *
+ *  @author Jenny Nguyen
+ */
+class PathFilterTest {
+    // a path up to four directories deep, out of a small set of names so some are shared
+    private static String randomPath(Random r) {
+        StringBuilder path = new StringBuilder();
+        for (int depth = r.nextInt(4); depth > 0; depth--) {
+            path.append("dir").append(r.nextInt(5)).append('/');
+        }
+        return path.append("file").append(r.nextInt(1000)).append(".txt").toString();
+    }
+
+    // PATH and each directory it is in
+    private static List<String> withDirectories(String path) {
+        List<String> result = new ArrayList<>();
+        for (int slash = path.length(); slash > 0; slash = path.lastIndexOf('/', slash - 1)) {
+            result.add(path.substring(0, slash));
+        }
+        return result;
+    }
+
+    static void testNoFalseNegatives() {
+        Random r = new Random(1);
+        for (int k = 0; k < 500; k++) {
+            List<String> paths = new ArrayList<>();
+            for (int n = r.nextInt(k % 50 + 1); n >= 0; n--) {
+                paths.add(randomPath(r));
+            }
+            byte[] filter = PathFilter.of(paths);
+            // stored among others, as in the filter file
+            ByteBuffer filters = ByteBuffer.allocate(filter.length + 16);
+            filters.position(8);
+            filters.put(filter);
+            for (String path : paths) {
+                for (String p : withDirectories(path)) {
+                    assertTrue(p + " of " + paths,
+                            PathFilter.mayContain(filters, 8, filter.length, p));
+                }
+            }
+        }
+    }
+
+    static void testTooManyPaths() {
+        List<String> paths = new ArrayList<>();
+        for (int i = 0; i < 1000; i++) {
+            paths.add("f" + i);
+        }
+        byte[] filter = PathFilter.of(paths);
+        assertEquals(0, filter.length);
+        assertTrue("an empty filter holds anything",
+                PathFilter.mayContain(ByteBuffer.wrap(filter), 0, 0, "anything"));
+    }
+
+    static void testFewFalsePositives() {
+        Random r = new Random(2);
+        List<String> paths = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            paths.add("src/a" + i + ".java");
+        }
+        ByteBuffer filter = ByteBuffer.wrap(PathFilter.of(paths));
+        int hits = 0;
+        for (int i = 0; i < 10000; i++) {
+            if (PathFilter.mayContain(filter, 0, filter.capacity(), "other/b" + r.nextInt())) {
+                hits++;
+            }
+        }
+        assertTrue(hits + " false positives in 10000", hits < 500);
+    }
+
+    static void testLogDirectory() {
+        TestRepo r = new TestRepo();
+        r.run("init");
+        r.commit("d/a.txt", "a\n", "one");
+        r.commit("top.txt", "t\n", "two");
+        r.commit("d/e/b.txt", "b\n", "three");
+        r.commit("dd/c.txt", "c\n", "four"); // d is only a prefix of its name
+        r.run("rm", "d/a.txt");
+        r.run("commit", "five");
+        for (int i = 0; i < 20; i++) {
+            r.commit("top.txt", i + "\n", "top " + i);
+        }
+
+        assertEquals("five\nthree\none\n", messages(r.run("log", "--oneline", "--", "d/")));
+        assertEquals("five\nthree\none\n", messages(r.run("log", "--oneline", "--", "d")));
+        assertEquals("three\n", messages(r.run("log", "--oneline", "--", "d/e/")));
+        assertEquals("four\n", messages(r.run("log", "--oneline", "--", "dd")));
+        assertEquals("", r.run("log", "--oneline", "--", "nowhere/"));
+    }
+
+    // the messages of log --oneline's lines
+    private static String messages(String log) {
+        return log.replaceAll("(?m)^[0-9a-f]{7} ", "");
+    }
+}
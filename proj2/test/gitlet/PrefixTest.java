@@ -0,0 +1,92 @@
+package gitlet;
+
+import java.util.List;
+
+import static gitlet.Assert.assertEquals;
+import static gitlet.Assert.assertTrue;
+
+/** Abbreviated commit IDs, among loose and packed commits.
+ *
+ *  @author Jenny Nguyen
+ */
+class PrefixTest {
+    // twenty commits, so some two of them must share a first hex digit
+    private static TestRepo twentyCommits() {
+        TestRepo r = new TestRepo();
+        r.run("init");
+        for (int i = 0; i < 20; i++) {
+            r.commit("f.txt", "version " + i + "\n", "commit " + i);
+        }
+        return r;
+    }
+
+    // how many of the repository's commits start with PREFIX
+    private static int count(String prefix) {
+        int n = 0;
+        for (String id : Commit.allIDs()) {
+            if (id.startsWith(prefix)) {
+                n++;
+            }
+        }
+        return n;
+    }
+
+    // checks that every ID is found by its shortest unique prefix, and that
+    // shared and unused prefixes are reported
+    private static void checkPrefixes(TestRepo r) {
+        List<String> ids = Commit.allIDs();
+        assertEquals(21, ids.size());
+        for (String id : ids) {
+            int length = 1;
+            while (count(id.substring(0, length)) > 1) {
+                length++;
+            }
+            String prefix = id.substring(0, Math.max(length, 4));
+            assertEquals(prefix, List.of(id), Commit.withPrefix(prefix));
+            String message = Commit.fromFile(id).getMessage();
+            r.run("checkout", prefix, "--", "f.txt");
+            if (!message.equals("initial commit")) {
+                assertEquals("version " + message.substring("commit ".length()) + "\n",
+                        TestRepo.read("f.txt"));
+            }
+        }
+
+        String shared = null;
+        for (char c : "0123456789abcdef".toCharArray()) {
+            if (count(String.valueOf(c)) > 1) {
+                shared = String.valueOf(c);
+            }
+        }
+        assertEquals("Commit id " + shared + " is ambiguous; it matches " + count(shared)
+                + " commits.\n", r.run("reset", shared));
+
+        String unused = null;
+        for (int n = 0; unused == null; n++) {
+            String p = String.format("%04x", n);
+            if (count(p) == 0) {
+                unused = p;
+            }
+        }
+        assertEquals("No commit with that id exists.\n", r.run("reset", unused));
+        assertEquals("No commit with that id exists.\n",
+                r.run("checkout", unused, "--", "f.txt"));
+        assertTrue(unused + " matches nothing", Commit.withPrefix(unused).isEmpty());
+    }
+
+    static void testLoosePrefixes() {
+        checkPrefixes(twentyCommits());
+    }
+
+    static void testPackedPrefixes() {
+        TestRepo r = twentyCommits();
+        r.run("pack");
+        checkPrefixes(r);
+    }
+
+    static void testFullID() {
+        TestRepo r = twentyCommits();
+        String head = TestRepo.head();
+        assertEquals(List.of(head), Commit.withPrefix(head));
+        assertEquals("", r.run("reset", head));
+    }
+}
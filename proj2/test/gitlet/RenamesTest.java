@@ -0,0 +1,150 @@
+package gitlet;
+
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import static gitlet.Assert.assertEquals;
+import static gitlet.Assert.assertTrue;
+
+/** Which added files are found to be renames or copies, and of what.
+ *
+ *  @author Jenny Nguyen
+ */
+class RenamesTest {
+    /** Snapshot by path, with their contents stored under made-up blob IDs. */
+    private static class Snapshot {
+        private final TreeMap<String, String> ids = new TreeMap<>();
+        private final HashMap<String, byte[]> contents;
+
+        Snapshot(HashMap<String, byte[]> blobs) {
+            contents = blobs;
+        }
+
+        Snapshot put(String path, String text) {
+            String id = "blob:" + text; // equal contents, equal IDs
+            contents.put(id, text.getBytes(StandardCharsets.UTF_8));
+            ids.put(path, id);
+            return this;
+        }
+
+        byte[] read(String path) {
+            return contents.get(ids.get(path));
+        }
+    }
+
+    // renames from DELETED to ADDED, and copies of KEPT
+    private static List<Renames.Pair> find(Snapshot deleted, Snapshot added, Snapshot kept) {
+        return Renames.find(deleted.ids, added.ids, kept.ids, deleted::read, added::read);
+    }
+
+    private static String describe(List<Renames.Pair> pairs) {
+        StringBuilder result = new StringBuilder();
+        for (Renames.Pair p : pairs) {
+            result.append(p.describe()).append(' ').append(p.getScore()).append("%\n");
+        }
+        return result.toString();
+    }
+
+    // N numbered lines, with the lines in CHANGED replaced
+    private static String numbered(int n, int... changed) {
+        StringBuilder result = new StringBuilder();
+        for (int i = 0; i < n; i++) {
+            boolean edited = false;
+            for (int c : changed) {
+                edited |= c == i;
+            }
+            result.append(edited ? "edited " : "line ").append(i).append('\n');
+        }
+        return result.toString();
+    }
+
+    static void testExactRename() {
+        HashMap<String, byte[]> blobs = new HashMap<>();
+        Snapshot deleted = new Snapshot(blobs).put("a.txt", numbered(10));
+        Snapshot added = new Snapshot(blobs).put("d/b.txt", numbered(10));
+        assertEquals("d/b.txt (renamed from a.txt) 100%\n",
+                describe(find(deleted, added, new Snapshot(blobs))));
+    }
+
+    static void testEditedRename() {
+        HashMap<String, byte[]> blobs = new HashMap<>();
+        Snapshot deleted = new Snapshot(blobs).put("a.txt", numbered(40))
+                .put("other.txt", "nothing like it\n");
+        Snapshot added = new Snapshot(blobs).put("b.txt", numbered(40, 3, 20));
+        List<Renames.Pair> pairs = find(deleted, added, new Snapshot(blobs));
+        assertEquals(1, pairs.size());
+        Renames.Pair p = pairs.get(0);
+        assertEquals("a.txt", p.getFrom());
+        assertEquals("b.txt", p.getTo());
+        assertTrue("score " + p.getScore(), p.getScore() >= 80 && p.getScore() < 100);
+        assertTrue("a rename", !p.isCopy());
+    }
+
+    static void testTooDifferent() {
+        HashMap<String, byte[]> blobs = new HashMap<>();
+        int[] most = new int[30];
+        for (int i = 0; i < most.length; i++) {
+            most[i] = i;
+        }
+        Snapshot deleted = new Snapshot(blobs).put("a.txt", numbered(40));
+        Snapshot added = new Snapshot(blobs).put("b.txt", numbered(40, most)); // only 10 kept
+        assertEquals("", describe(find(deleted, added, new Snapshot(blobs))));
+    }
+
+    static void testBestPairsTaken() {
+        HashMap<String, byte[]> blobs = new HashMap<>();
+        Snapshot deleted = new Snapshot(blobs).put("a.txt", numbered(40))
+                .put("b.txt", numbered(40, 0, 1, 2, 3, 4, 5, 6, 7));
+        Snapshot added = new Snapshot(blobs).put("c.txt", numbered(40, 0, 1, 2, 3, 4, 5, 6))
+                .put("d.txt", numbered(40, 39));
+        Map<String, String> from = new HashMap<>();
+        for (Renames.Pair p : find(deleted, added, new Snapshot(blobs))) {
+            from.put(p.getTo(), p.getFrom());
+        }
+        assertEquals("b.txt", from.get("c.txt"));
+        assertEquals("a.txt", from.get("d.txt"));
+    }
+
+    static void testCopies() {
+        HashMap<String, byte[]> blobs = new HashMap<>();
+        Snapshot kept = new Snapshot(blobs).put("k.txt", numbered(10));
+        Snapshot added = new Snapshot(blobs).put("copy.txt", numbered(10))
+                .put("near.txt", numbered(10, 5));
+        // only exact copies of kept files count
+        assertEquals("copy.txt (copied from k.txt) 100%\n",
+                describe(find(new Snapshot(blobs), added, kept)));
+    }
+
+    static void testRenameBeforeCopy() {
+        HashMap<String, byte[]> blobs = new HashMap<>();
+        Snapshot deleted = new Snapshot(blobs).put("gone.txt", numbered(10));
+        Snapshot kept = new Snapshot(blobs).put("k.txt", numbered(10));
+        Snapshot added = new Snapshot(blobs).put("a.txt", numbered(10)).put("b.txt", numbered(10));
+        // the deleted file goes to one added file; the other is a copy of the kept one
+        assertEquals("a.txt (renamed from gone.txt) 100%\nb.txt (copied from k.txt) 100%\n",
+                describe(find(deleted, added, kept)));
+    }
+
+    static void testStatusShowsRenames() {
+        TestRepo r = new TestRepo();
+        r.run("init");
+        TestRepo.write("a.txt", numbered(20));
+        TestRepo.write("k.txt", "kept\n");
+        r.run("add", "a.txt");
+        r.run("add", "k.txt");
+        r.run("commit", "one");
+        r.run("rm", "a.txt");
+        TestRepo.write("d/a.txt", numbered(20, 4));
+        TestRepo.write("k2.txt", "kept\n");
+        r.run("add", "d/a.txt");
+        r.run("add", "k2.txt");
+
+        String status = r.run("status", "--renames");
+        assertTrue(status, status.contains("=== Staged Files ===\nd/a.txt (renamed from a.txt)\n"
+                + "k2.txt (copied from k.txt)\n\n"));
+        assertTrue(status, r.run("status").contains("=== Staged Files ===\nd/a.txt\nk2.txt\n\n"));
+    }
+}
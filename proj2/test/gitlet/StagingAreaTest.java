@@ -0,0 +1,124 @@
+package gitlet;
+
+import java.util.Arrays;
+import java.util.TreeMap;
+
+import static gitlet.Assert.assertEquals;
+import static gitlet.Assert.assertTrue;
+
+/** The staging area's journal: records replay to the same stages, a torn
+ *  last record is dropped, and compaction keeps what was staged.
+ *
+ *  @author Jenny Nguyen
+ */
+class StagingAreaTest {
+    private static String id(int n) {
+        return String.format("%040x", n);
+    }
+
+    // a fresh, empty staging area saved as a bare snapshot
+    private static void init() {
+        Repository.GITLET_DIR.mkdirs();
+        new StagingArea().saveStage();
+    }
+
+    private static String stages(StagingArea stage) {
+        return stage.getStageAddition() + " " + stage.getStageRemoval().keySet();
+    }
+
+    static void testReplay() {
+        init();
+        byte[] snapshot = Utils.readContents(Repository.STAGING_AREA);
+
+        StagingArea stage = StagingArea.fromFile();
+        stage.addNew("a.txt", id(1));
+        stage.addNew("d/b.txt", id(2));
+        stage.saveStage();
+        stage = StagingArea.fromFile();
+        stage.addNew("a.txt", id(3)); // ADD again, for a new version
+        stage.remove("d/b.txt"); // UNADD
+        stage.addRemoval("c.txt"); // REMOVE
+        stage.addRemoval("e.txt");
+        stage.saveStage();
+        stage = StagingArea.fromFile();
+        stage.checkStageRemoval("c.txt"); // UNREMOVE
+        stage.saveStage();
+
+        String expected = "{a.txt=" + id(3) + "} [e.txt]";
+        assertEquals(expected, stages(stage));
+        assertEquals(expected, stages(StagingArea.fromFile()));
+        // every change was appended after the first snapshot
+        byte[] file = Utils.readContents(Repository.STAGING_AREA);
+        assertTrue("appended to the snapshot", file.length > snapshot.length
+                && Arrays.equals(snapshot, Arrays.copyOf(file, snapshot.length)));
+    }
+
+    static void testNoRecordForNoChange() {
+        init();
+        StagingArea stage = StagingArea.fromFile();
+        stage.addNew("a.txt", id(1));
+        stage.saveStage();
+        long length = Repository.STAGING_AREA.length();
+        stage = StagingArea.fromFile();
+        stage.addNew("a.txt", id(1));
+        stage.remove("b.txt");
+        stage.checkStageRemoval("c.txt");
+        stage.saveStage();
+        assertEquals(length, Repository.STAGING_AREA.length());
+    }
+
+    static void testTornLastRecord() {
+        init();
+        StagingArea stage = StagingArea.fromFile();
+        stage.addNew("a.txt", id(1));
+        stage.addRemoval("b.txt");
+        stage.saveStage();
+        byte[] before = Utils.readContents(Repository.STAGING_AREA);
+        stage = StagingArea.fromFile();
+        stage.addNew("dir/c.txt", id(2));
+        stage.saveStage();
+        byte[] after = Utils.readContents(Repository.STAGING_AREA);
+
+        String kept = "{a.txt=" + id(1) + "} [b.txt]";
+        for (int n = before.length; n < after.length; n++) {
+            // as if a crash had cut the last append short after N bytes
+            Utils.writeContents(Repository.STAGING_AREA, Arrays.copyOf(after, n));
+            stage = StagingArea.fromFile();
+            assertEquals("cut at " + n, kept, stages(stage));
+
+            // the torn bytes are not built on: the next save writes the file afresh
+            stage.addNew("e.txt", id(5));
+            stage.saveStage();
+            assertEquals("saved after a cut at " + n,
+                    "{a.txt=" + id(1) + ", e.txt=" + id(5) + "} [b.txt]",
+                    stages(StagingArea.fromFile()));
+        }
+    }
+
+    static void testCompaction() {
+        init();
+        TreeMap<String, String> expected = new TreeMap<>();
+        long longest = 0;
+        for (int i = 0; i < 2000; i++) {
+            StagingArea stage = StagingArea.fromFile();
+            String name = "f" + (i % 7) + ".txt";
+            if (i % 3 == 2) {
+                stage.remove(name);
+                expected.remove(name);
+            } else {
+                stage.addNew(name, id(i));
+                expected.put(name, id(i));
+            }
+            stage.saveStage();
+            longest = Math.max(longest, Repository.STAGING_AREA.length());
+        }
+        StagingArea stage = StagingArea.fromFile();
+        assertEquals(expected, stage.getStageAddition());
+        // rewritten long before 2000 records of 20-odd bytes each pile up
+        assertTrue("at most " + longest + " bytes", longest < 10000);
+
+        stage.clearStages();
+        stage.saveStage();
+        assertEquals("{} []", stages(StagingArea.fromFile()));
+    }
+}
@@ -0,0 +1,84 @@
+package gitlet;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.attribute.FileTime;
+
+import static gitlet.Assert.assertEquals;
+import static gitlet.Assert.assertTrue;
+
+/** What status lists for files in subdirectories, for removed files added
+ *  back, and for files rewritten just after the stat cache was saved.
+ *
+ *  @author Jenny Nguyen
+ */
+class StatusTest {
+    // the lines of status's SECTION, without its heading
+    private static String section(String status, String section) {
+        int start = status.indexOf("=== " + section + " ===\n");
+        int end = status.indexOf("\n\n", start);
+        return status.substring(status.indexOf('\n', start) + 1, end + 1);
+    }
+
+    static void testUntrackedInSubdirectories() {
+        TestRepo r = new TestRepo();
+        r.run("init");
+        r.commit("d/tracked.txt", "t\n", "one");
+        TestRepo.write("top.txt", "u\n");
+        TestRepo.write("d/new.txt", "u\n");
+        TestRepo.write("d/e/deeper.txt", "u\n");
+        TestRepo.write("staged/s.txt", "s\n");
+        r.run("add", "staged/s.txt");
+
+        String status = r.run("status");
+        assertEquals("d/e/deeper.txt\nd/new.txt\ntop.txt\n", section(status, "Untracked Files"));
+        assertEquals("staged/s.txt\n", section(status, "Staged Files"));
+    }
+
+    static void testRemovedFileIsUntracked() {
+        TestRepo r = new TestRepo();
+        r.run("init");
+        r.commit("d/f.txt", "f\n", "one");
+        r.run("rm", "d/f.txt");
+        TestRepo.write("d/f.txt", "f\n");
+        assertEquals("d/f.txt\n", section(r.run("status"), "Untracked Files"));
+    }
+
+    static void testAddDirectoryUnstagesRemoval() {
+        TestRepo r = new TestRepo();
+        r.run("init");
+        r.commit("d/f.txt", "f\n", "one");
+        r.run("rm", "d/f.txt");
+        TestRepo.write("d/f.txt", "f\n");
+        r.run("add", "d");
+
+        String status = r.run("status");
+        assertEquals("", section(status, "Removed Files"));
+        assertEquals("", section(status, "Untracked Files"));
+        TestRepo.write("g.txt", "g\n");
+        r.run("add", "g.txt");
+        r.run("commit", "two");
+        assertTrue("the next commit keeps d/f.txt",
+                Commit.fromFile(TestRepo.head()).getBlobID("d/f.txt") != null);
+    }
+
+    static void testRewriteInTheCacheTick() throws IOException {
+        TestRepo r = new TestRepo();
+        r.run("init");
+        r.commit("f.txt", "1\n", "one");
+        // as if the stat cache was saved, and f.txt then rewritten at the same size,
+        // all within one tick of the file system's clock
+        FileTime tick = FileTime.fromMillis(System.currentTimeMillis() - 60000);
+        Files.setLastModifiedTime(Repository.STAT_CACHE.toPath(), tick);
+        TestRepo.write("f.txt", "2\n");
+        Files.setLastModifiedTime(Utils.join(Repository.CWD, "f.txt").toPath(), tick);
+        StatCache cache = StatCache.fromFile();
+        cache.record("f.txt", Commit.fromFile(TestRepo.head()).getBlobID("f.txt"));
+        cache.saveCache();
+        Files.setLastModifiedTime(Repository.STAT_CACHE.toPath(), tick);
+
+        assertEquals("f.txt (modified)\n",
+                section(r.run("status"), "Modifications Not Staged For Commit"));
+        assertEquals("", r.commit("f.txt", "2\n", "two"));
+    }
+}
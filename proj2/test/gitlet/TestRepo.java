@@ -0,0 +1,88 @@
+package gitlet;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static gitlet.Utils.join;
+
+/** A repository in the test's working directory, driven through the same
+ *  entry point as the command line, so tests read like the command
+ *  sequences they stand for.
+ *
+ *  @author Jenny Nguyen
+ */
+class TestRepo {
+    private final Repository repo = new Repository();
+
+    /** Runs the gitlet command ARGS and returns what it printed, ending
+     *  with the message of the error that stopped it, if one did. */
+    String run(String... args) {
+        PrintStream out = System.out;
+        ByteArrayOutputStream buf = new ByteArrayOutputStream();
+        System.setOut(new PrintStream(buf, true, StandardCharsets.UTF_8));
+        try {
+            Main.run(args, repo);
+        } catch (GitletException excp) {
+            System.out.println(excp.getMessage());
+        } finally {
+            System.setOut(out);
+        }
+        return buf.toString(StandardCharsets.UTF_8);
+    }
+
+    /** Writes CONTENTS to file PATH, making its directories. */
+    static void write(String path, String contents) {
+        File f = join(Repository.CWD, path);
+        f.getParentFile().mkdirs();
+        Utils.writeContents(f, contents);
+    }
+
+    /** Copies the repository and working files saved under fixtures/NAME
+     *  into the working directory. */
+    static void copyFixture(String name) {
+        Path from = Path.of(System.getProperty("gitlet.fixtures"), name);
+        try (Stream<Path> paths = Files.walk(from)) {
+            List<Path> files = paths.filter(Files::isRegularFile).collect(Collectors.toList());
+            for (Path p : files) {
+                Path to = Repository.CWD.toPath().resolve(from.relativize(p));
+                Files.createDirectories(to.getParent());
+                Files.copy(p, to);
+            }
+        } catch (IOException excp) {
+            throw new IllegalArgumentException(excp.getMessage());
+        }
+    }
+
+    static String read(String path) {
+        return Utils.readContentsAsString(join(Repository.CWD, path));
+    }
+
+    static boolean exists(String path) {
+        return join(Repository.CWD, path).exists();
+    }
+
+    /** ID of the commit at the head of branch NAME. */
+    static String branch(String name) {
+        return Utils.readContentsAsString(join(Repository.BRANCHES, name));
+    }
+
+    /** ID of the current commit. */
+    static String head() {
+        return branch(Utils.readContentsAsString(Repository.HEAD));
+    }
+
+    /** Writes CONTENTS to PATH, then adds and commits it with MESSAGE. */
+    String commit(String path, String contents, String message) {
+        write(path, contents);
+        run("add", path);
+        return run("commit", message);
+    }
+}
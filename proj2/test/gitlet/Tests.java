@@ -0,0 +1,150 @@
+package gitlet;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Stream;
+
+/** Runs gitlet's tests. A test is a static method of a test class whose
+ *  name starts with "test"; it passes unless it throws. Like the
+ *  benchmarks, every test runs in its own JVM inside its own scratch
+ *  directory, so a test that builds a repository in its working directory
+ *  never sees another's files or the objects another has cached.
+ *
+ *  Usage: java gitlet.Tests [CLASS ...]
+ *
+ *  Run from the directory holding this one, since the repositories saved
+ *  under fixtures are found from there.
+ *
+ *  Prints one line per test and the output of any that failed, and exits
+ *  with status 1 if any did.
+ *
+ *  @author Jenny Nguyen
+ */
+public class Tests {
+    static final String[] CLASSES = {
+        "BlobTest",
+        "ChunksTest",
+        "CommitGraphTest",
+        "DaemonTest",
+        "DeltaTest",
+        "DiffTest",
+        "FindTest",
+        "LineMergeTest",
+        "LogTest",
+        "MergeTest",
+        "MigrateTest",
+        "PackTest",
+        "PathFilterTest",
+        "PrefixTest",
+        "RenamesTest",
+        "StagingAreaTest",
+        "StatusTest",
+        "WorkingTreeTest",
+    };
+
+    public static void main(String[] args)
+            throws IOException, InterruptedException, ClassNotFoundException {
+        if (args.length == 3 && args[0].equals("--run")) {
+            runHere(args[1], args[2]);
+            return;
+        }
+        List<String> classes = Arrays.asList(args.length == 0 ? CLASSES : args);
+        int passed = 0;
+        int failed = 0;
+        for (String name : classes) {
+            for (Method m : tests(Class.forName("gitlet." + name))) {
+                Path dir = Files.createTempDirectory("gitlet-test");
+                try {
+                    String output = fork(dir, name, m.getName());
+                    if (output == null) {
+                        passed++;
+                        System.out.println("pass  " + name + "." + m.getName());
+                    } else {
+                        failed++;
+                        System.out.println("FAIL  " + name + "." + m.getName());
+                        System.out.print(output.replaceAll("(?m)^", "      "));
+                    }
+                } finally {
+                    deleteTree(dir);
+                }
+            }
+        }
+        System.out.println(passed + " passed, " + failed + " failed");
+        System.exit(failed == 0 ? 0 : 1);
+    }
+
+    // the test methods of class C, by name
+    private static List<Method> tests(Class<?> c) {
+        List<Method> result = new ArrayList<>();
+        for (Method m : c.getDeclaredMethods()) {
+            if (m.getName().startsWith("test") && Modifier.isStatic(m.getModifiers())
+                    && m.getParameterCount() == 0) {
+                result.add(m);
+            }
+        }
+        result.sort(Comparator.comparing(Method::getName));
+        return result;
+    }
+
+    /** Runs test METHOD of class NAME in a new JVM with DIR as its working
+     *  directory. Returns null if it passed, else everything it printed. */
+    private static String fork(Path dir, String name, String method)
+            throws IOException, InterruptedException {
+        List<String> command = new ArrayList<>(List.of(
+                Path.of(System.getProperty("java.home"), "bin", "java").toString(),
+                "-cp", classPath(), "-Dgitlet.fixtures=" + new File("fixtures").getAbsolutePath(),
+                "gitlet.Tests", "--run", name, method));
+        ProcessBuilder pb = new ProcessBuilder(command);
+        pb.directory(dir.toFile());
+        pb.redirectErrorStream(true);
+        Process p = pb.start();
+        String output;
+        try (InputStream in = p.getInputStream()) {
+            output = new String(in.readAllBytes(), StandardCharsets.UTF_8);
+        }
+        return p.waitFor() == 0 ? null : output;
+    }
+
+    // runs one test in this JVM, exiting with status 1 if it throws
+    private static void runHere(String name, String method) {
+        try {
+            Method m = Class.forName("gitlet." + name).getDeclaredMethod(method);
+            m.setAccessible(true);
+            m.invoke(null);
+        } catch (InvocationTargetException excp) {
+            excp.getCause().printStackTrace();
+            System.exit(1);
+        } catch (ReflectiveOperationException excp) {
+            excp.printStackTrace();
+            System.exit(1);
+        }
+        System.exit(0); // even if the test left threads running
+    }
+
+    // this JVM's class path with every entry made absolute, since the
+    // test runs in another directory
+    private static String classPath() {
+        List<String> entries = new ArrayList<>();
+        for (String e : System.getProperty("java.class.path").split(File.pathSeparator)) {
+            entries.add(new File(e).getAbsolutePath());
+        }
+        return String.join(File.pathSeparator, entries);
+    }
+
+    private static void deleteTree(Path dir) throws IOException {
+        try (Stream<Path> paths = Files.walk(dir)) {
+            paths.sorted(Comparator.reverseOrder()).forEach(p -> p.toFile().delete());
+        }
+    }
+}
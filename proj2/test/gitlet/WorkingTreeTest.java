@@ -0,0 +1,100 @@
+package gitlet;
+
+import java.io.File;
+import java.util.Arrays;
+
+import static gitlet.Assert.assertEquals;
+import static gitlet.Assert.assertFalse;
+import static gitlet.Assert.assertTrue;
+
+/** What checkouts leave in the working directory.
+ *
+ *  @author Jenny Nguyen
+ */
+class WorkingTreeTest {
+    static void testCheckoutRemovesEmptyDirectories() {
+        TestRepo r = new TestRepo();
+        r.run("init");
+        r.commit("top.txt", "t\n", "one");
+        r.run("branch", "b");
+        TestRepo.write("d/e/f.txt", "f\n");
+        TestRepo.write("d/g.txt", "g\n");
+        r.run("add", "d/e/f.txt", "d/g.txt");
+        r.run("commit", "two");
+
+        r.run("checkout", "b");
+        assertFalse("d was left empty", TestRepo.exists("d"));
+        assertEquals("t\n", TestRepo.read("top.txt"));
+        r.run("checkout", "master");
+        assertEquals("f\n", TestRepo.read("d/e/f.txt"));
+        assertEquals("g\n", TestRepo.read("d/g.txt"));
+    }
+
+    static void testCheckoutKeepsUntrackedFiles() {
+        TestRepo r = new TestRepo();
+        r.run("init");
+        r.commit("top.txt", "t\n", "one");
+        r.run("branch", "b");
+        r.commit("d/e/f.txt", "f\n", "two");
+        TestRepo.write("d/mine.txt", "m\n");
+
+        r.run("checkout", "b");
+        assertFalse("d/e was left empty", TestRepo.exists("d/e"));
+        assertEquals("m\n", TestRepo.read("d/mine.txt"));
+    }
+
+    static void testNoTemporaryFilesLeft() {
+        TestRepo r = new TestRepo();
+        r.run("init");
+        String[] names = new String[20]; // enough to go to the writer threads
+        for (int i = 0; i < names.length; i++) {
+            names[i] = "d/f" + i + ".txt";
+            TestRepo.write(names[i], "old " + i + "\n");
+            r.run("add", names[i]);
+        }
+        r.run("commit", "old");
+        r.run("branch", "old");
+        for (int i = 0; i < names.length; i++) {
+            TestRepo.write(names[i], "new " + i + "\n");
+            r.run("add", names[i]);
+        }
+        r.run("commit", "new");
+
+        r.run("checkout", "old");
+        for (int i = 0; i < names.length; i++) {
+            assertEquals("old " + i + "\n", TestRepo.read(names[i]));
+        }
+        String[] listed = new File(Repository.CWD, "d").list();
+        assertEquals(names.length, listed.length);
+        assertTrue(Arrays.toString(listed), Arrays.stream(listed).allMatch(n -> n.startsWith("f")));
+    }
+
+    static void testWriteFailureReported() {
+        TestRepo r = new TestRepo();
+        r.run("init");
+        r.commit("f.txt", "f\n", "one");
+        // a directory in the way, which the rename cannot replace
+        Utils.join(Repository.CWD, "f.txt").delete();
+        TestRepo.write("f.txt/inner.txt", "i\n");
+
+        String output = r.run("checkout", "--", "f.txt");
+        assertTrue(output, output.startsWith("Could not write f.txt: "));
+        assertEquals("i\n", TestRepo.read("f.txt/inner.txt"));
+        assertEquals(1, new File(Repository.CWD, "f.txt").list().length);
+        assertFalse("temporary file left", TestRepo.exists(".f.txt.gitlet-tmp"));
+    }
+
+    static void testMissingBlobReported() {
+        TestRepo r = new TestRepo();
+        r.run("init");
+        r.commit("f.txt", "old\n", "old");
+        String id = Commit.fromFile(TestRepo.head()).getBlobID("f.txt");
+        r.run("branch", "old");
+        r.commit("f.txt", "new\n", "new");
+        Repository.looseObject(Repository.BLOB_FOLDER, id).delete();
+
+        assertEquals("Blob " + id + " of f.txt is missing.\n", r.run("checkout", "old"));
+        assertEquals("new\n", TestRepo.read("f.txt"));
+        assertEquals("master", Utils.readContentsAsString(Repository.HEAD));
+    }
+}